@@ -21,14 +21,19 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.multibindings.Multibinder;
+import io.kodokojo.api.config.module.CachedRedisReadOnlyModule;
 import io.kodokojo.api.config.module.HttpModule;
 import io.kodokojo.api.config.module.PropertyModule;
 import io.kodokojo.api.config.module.ServiceModule;
 import io.kodokojo.api.config.module.endpoint.BrickEndpointModule;
+import io.kodokojo.api.config.module.endpoint.MetricEndpointModule;
 import io.kodokojo.api.config.module.endpoint.ProjectEndpointModule;
 import io.kodokojo.api.config.module.endpoint.UserEndpointModule;
 import io.kodokojo.api.endpoint.HttpEndpoint;
 import io.kodokojo.api.endpoint.JettySupport;
+import io.kodokojo.api.endpoint.sse.SseSessionReaper;
+import io.kodokojo.api.service.UserIdentifierPool;
+import io.kodokojo.api.service.WarmUp;
 import io.kodokojo.commons.config.MicroServiceConfig;
 import io.kodokojo.commons.config.module.*;
 import io.kodokojo.commons.event.EventBus;
@@ -59,7 +64,7 @@ public class Launcher {
                 new UtilityServiceModule(),
                 new EventBusModule(),
                 new ServiceModule(),
-                new RedisReadOnlyModule(),
+                new CachedRedisReadOnlyModule(),
                 new SecurityModule(),
                 new CommonsHealthCheckModule()
         );
@@ -69,6 +74,7 @@ public class Launcher {
                 new UserEndpointModule(),
                 new ProjectEndpointModule(),
                 new BrickEndpointModule(),
+                new MetricEndpointModule(),
                 new AbstractModule() {
                     @Override
                     protected void configure() {
@@ -94,6 +100,9 @@ public class Launcher {
         JettySupport jettySupport = injector.getInstance(JettySupport.class);
 
         eventBus.connect();
+        injector.getInstance(UserIdentifierPool.class).start();
+        injector.getInstance(WarmUp.class).run();
+        injector.getInstance(SseSessionReaper.class).start();
         jettySupport.start();
 
         LOGGER.info("Kodo Kojo {} started.", microServiceConfig.name());
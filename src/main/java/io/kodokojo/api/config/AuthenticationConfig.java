@@ -0,0 +1,70 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface AuthenticationConfig extends PropertyConfig {
+
+    @Key(value = "authentication.cache.size", defaultValue = "1000")
+    int cacheSize();
+
+    /**
+     * @return Time to live in milliseconds of a verified credential.
+     */
+    @Key(value = "authentication.cache.ttl", defaultValue = "30000")
+    long cacheTtl();
+
+    /**
+     * @return Secret used to sign bearer tokens. A random secret is generated at startup when not defined.
+     */
+    @Key(value = "authentication.token.secret", defaultValue = "")
+    String tokenSecret();
+
+    /**
+     * @return Time to live in milliseconds of a bearer token.
+     */
+    @Key(value = "authentication.token.ttl", defaultValue = "900000")
+    long tokenTtl();
+
+    /**
+     * @return Number of failed authentications allowed for a same client ip and username before being throttled.
+     */
+    @Key(value = "authentication.throttle.maxFailuresByUsername", defaultValue = "10")
+    int throttleMaxFailuresByUsername();
+
+    /**
+     * @return Number of failed authentications allowed for a same client ip, whatever the username, before being throttled.
+     */
+    @Key(value = "authentication.throttle.maxFailuresByIp", defaultValue = "50")
+    int throttleMaxFailuresByIp();
+
+    /**
+     * @return Period in milliseconds after which failure counters are halved.
+     */
+    @Key(value = "authentication.throttle.decayPeriod", defaultValue = "60000")
+    long throttleDecayPeriod();
+
+    /**
+     * @return Number of counters of each row of the failure sketch, rounded to a power of two.
+     */
+    @Key(value = "authentication.throttle.size", defaultValue = "4096")
+    int throttleSize();
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface EventPublicationConfig extends PropertyConfig {
+
+    /**
+     * @return <code>true</code> to change all organisation admins of a request with a single event,
+     * <code>false</code> to publish one event per user for consumers which only understand the single user form.
+     * Enable only once every consumer of the event read the batched payload.
+     */
+    @Key(value = "eventbus.organisationChangeAdmin.batched", defaultValue = "false")
+    Boolean organisationChangeAdminBatched();
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface EventRequestConfig extends PropertyConfig {
+
+    /**
+     * @return Number of threads which wait for the replies of suspended HTTP requests.
+     */
+    @Key(value = "eventbus.request.threads", defaultValue = "64")
+    int threads();
+
+    /**
+     * @return Number of requests which may wait for a free thread before new requests are answered with a 503.
+     */
+    @Key(value = "eventbus.request.queueSize", defaultValue = "512")
+    int queueSize();
+
+    /**
+     * @return Time in milliseconds given to an event request to be replied when its event type has no dedicated deadline.
+     */
+    @Key(value = "eventbus.request.deadline.default", defaultValue = "30000")
+    long defaultDeadline();
+
+    @Key(value = "eventbus.request.deadline.userIdentifierCreation", defaultValue = "30000")
+    long userIdentifierCreationDeadline();
+
+    @Key(value = "eventbus.request.deadline.userCreation", defaultValue = "10000")
+    long userCreationDeadline();
+
+    @Key(value = "eventbus.request.deadline.userUpdate", defaultValue = "5000")
+    long userUpdateDeadline();
+
+    @Key(value = "eventbus.request.deadline.organisationCreation", defaultValue = "30000")
+    long organisationCreationDeadline();
+
+    @Key(value = "eventbus.request.deadline.projectConfigurationCreation", defaultValue = "30000")
+    long projectConfigurationCreationDeadline();
+
+    @Key(value = "eventbus.request.deadline.projectConfigurationStart", defaultValue = "60000")
+    long projectConfigurationStartDeadline();
+
+    /**
+     * @return Maximum number of requests waiting for a reply at the same time, shared by event types without dedicated bulkhead.
+     */
+    @Key(value = "eventbus.request.bulkhead.default", defaultValue = "16")
+    int defaultBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.userIdentifierCreation", defaultValue = "16")
+    int userIdentifierCreationBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.userCreation", defaultValue = "16")
+    int userCreationBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.userUpdate", defaultValue = "16")
+    int userUpdateBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.organisationCreation", defaultValue = "8")
+    int organisationCreationBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.projectConfigurationCreation", defaultValue = "16")
+    int projectConfigurationCreationBulkhead();
+
+    @Key(value = "eventbus.request.bulkhead.projectConfigurationStart", defaultValue = "8")
+    int projectConfigurationStartBulkhead();
+
+    /**
+     * @return Number of consecutive requests of an event type without reply which open its circuit.
+     */
+    @Key(value = "eventbus.request.circuit.failureThreshold", defaultValue = "5")
+    int circuitFailureThreshold();
+
+    /**
+     * @return Time in milliseconds during which requests of an event type fail fast once its circuit is open.
+     */
+    @Key(value = "eventbus.request.circuit.openDuration", defaultValue = "10000")
+    long circuitOpenDuration();
+
+    /**
+     * @return Number of trial requests allowed at the same time when a circuit is half open.
+     */
+    @Key(value = "eventbus.request.circuit.halfOpenRequests", defaultValue = "1")
+    int circuitHalfOpenRequests();
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface RepositoryCacheConfig extends PropertyConfig {
+
+    @Key(value = "repository.cache.user.size", defaultValue = "1000")
+    int userSize();
+
+    @Key(value = "repository.cache.projectConfiguration.size", defaultValue = "500")
+    int projectConfigurationSize();
+
+    @Key(value = "repository.cache.organisation.size", defaultValue = "200")
+    int organisationSize();
+
+    @Key(value = "repository.cache.organisationRights.size", defaultValue = "1000")
+    int organisationRightsSize();
+
+    @Key(value = "repository.negativeCache.size", defaultValue = "10000")
+    int negativeCacheSize();
+
+    /**
+     * @return Time in milliseconds during which an identifier which match no entity is answered without lookup.
+     */
+    @Key(value = "repository.negativeCache.ttl", defaultValue = "2000")
+    long negativeCacheTtl();
+
+    /**
+     * @return Number of threads used to fetch entities of a same hierarchy in parallel.
+     */
+    @Key(value = "repository.lookup.threads", defaultValue = "8")
+    int lookupThreads();
+
+    /**
+     * @return Number of parallel fetches waiting for a lookup thread. Once full, fetches run on the calling thread.
+     */
+    @Key(value = "repository.lookup.queueSize", defaultValue = "64")
+    int lookupQueueSize();
+
+    /**
+     * @return Time to live in milliseconds of the known identifiers of a project hierarchy.
+     */
+    @Key(value = "repository.lookup.linksTtl", defaultValue = "86400000")
+    long lookupLinksTtl();
+
+    /**
+     * @return Time to live in milliseconds of a cached entity. Bound the staleness of an entity changed by an other service.
+     */
+    @Key(value = "repository.cache.ttl", defaultValue = "10000")
+    long ttl();
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface SseConfig extends PropertyConfig {
+
+    /**
+     * @return Time in milliseconds between two heartbeats sent by Jetty on each SSE session, rounded up to the second.
+     * A failed heartbeat close the session.
+     */
+    @Key(value = "sse.heartbeat.period", defaultValue = "15000")
+    long heartbeatPeriod();
+
+    /**
+     * @return Time in milliseconds between two reaping of SSE sessions which have pending events but don't write any,
+     * 0 to disable reaping.
+     */
+    @Key(value = "sse.session.idleTimeout", defaultValue = "60000")
+    long idleTimeout();
+
+    /**
+     * @return Number of threads which write events on SSE sessions.
+     */
+    @Key(value = "sse.writer.threads", defaultValue = "4")
+    int writerThreads();
+
+    /**
+     * @return Maximum number of events pending to be written on each SSE session.
+     */
+    @Key(value = "sse.queue.capacity", defaultValue = "64")
+    int queueCapacity();
+
+    /**
+     * @return Policy applied when the queue of an SSE session is full: DROP_OLDEST, CONFLATE or DISCONNECT.
+     */
+    @Key(value = "sse.queue.overflowPolicy", defaultValue = "DROP_OLDEST")
+    String overflowPolicy();
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface UserIdentifierPoolConfig extends PropertyConfig {
+
+    /**
+     * @return Maximum number of user identifiers issued in advance, 0 to disable the pool.
+     */
+    @Key(value = "user.identifierPool.size", defaultValue = "50")
+    int size();
+
+    /**
+     * @return Number of available user identifiers under which the pool is refilled.
+     */
+    @Key(value = "user.identifierPool.lowWaterMark", defaultValue = "10")
+    int lowWaterMark();
+
+    /**
+     * @return Time in milliseconds after which a pooled user identifier is discarded instead of being served.
+     */
+    @Key(value = "user.identifierPool.maxAge", defaultValue = "600000")
+    long maxAge();
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config;
+
+import io.kodokojo.commons.config.properties.Key;
+import io.kodokojo.commons.config.properties.PropertyConfig;
+
+public interface WarmUpConfig extends PropertyConfig {
+
+    @Key(value = "warmup.enabled", defaultValue = "false")
+    Boolean enabled();
+
+    /**
+     * @return Maximum time in milliseconds spent to warm up caches before accepting traffic. Bounded by half of
+     * <code>repository.cache.ttl</code>.
+     */
+    @Key(value = "warmup.budget", defaultValue = "5000")
+    long budget();
+
+    /**
+     * @return Comma separated identifiers of organisations to preload.
+     */
+    @Key(value = "warmup.organisationIds", defaultValue = "")
+    String organisationIds();
+
+    /**
+     * @return Comma separated identifiers of the most active project configurations to preload.
+     */
+    @Key(value = "warmup.projectConfigurationIds", defaultValue = "")
+    String projectConfigurationIds();
+
+}
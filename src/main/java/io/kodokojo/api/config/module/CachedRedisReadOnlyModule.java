@@ -0,0 +1,187 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Scope;
+import com.google.inject.Singleton;
+import com.google.inject.binder.ScopedBindingBuilder;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.endpoint.AsyncEventRequester;
+import io.kodokojo.api.service.cache.NegativeCache;
+import io.kodokojo.api.service.cache.RepositoryCache;
+import io.kodokojo.api.service.cache.RequestScope;
+import io.kodokojo.api.service.cache.SingleFlight;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.config.module.RedisReadOnlyModule;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replace {@link RedisReadOnlyModule}: its fetchers are bound behind a <code>@Named("backend")</code> key
+ * and the unqualified fetchers are served through a {@link RepositoryCache}, memoized in the {@link RequestScope}.
+ * Identifiers which match no entity are remembered for a short time by a {@link NegativeCache} and concurrent
+ * cache misses on a same identifier are coalesced by a {@link SingleFlight}.
+ */
+public class CachedRedisReadOnlyModule extends AbstractModule {
+
+    public static final String BACKEND = "backend";
+
+    private static final Set<Key<?>> CACHED_KEYS = new HashSet<>(Arrays.asList(
+            Key.get(UserFetcher.class),
+            Key.get(ProjectFetcher.class),
+            Key.get(OrganisationFetcher.class)
+    ));
+
+    @Override
+    protected void configure() {
+        for (Element element : Elements.getElements(new RedisReadOnlyModule())) {
+            if (element instanceof Binding && CACHED_KEYS.contains(((Binding<?>) element).getKey())) {
+                bindAsBackend((Binding<?>) element);
+            } else {
+                element.applyTo(binder());
+            }
+        }
+    }
+
+    @Provides
+    @Singleton
+    RepositoryCache provideRepositoryCache(RepositoryCacheConfig repositoryCacheConfig, MetricRegistry metricRegistry, EventBus eventBus, AsyncEventRequester asyncEventRequester) {
+        RepositoryCache repositoryCache = new RepositoryCache(repositoryCacheConfig.userSize(),
+                repositoryCacheConfig.projectConfigurationSize(),
+                repositoryCacheConfig.organisationSize(),
+                repositoryCacheConfig.ttl(),
+                TimeUnit.MILLISECONDS,
+                metricRegistry);
+        eventBus.addEventListener(repositoryCache);
+        asyncEventRequester.addReplyListener(repositoryCache);
+        return repositoryCache;
+    }
+
+    @Provides
+    @Singleton
+    NegativeCache provideNegativeCache(RepositoryCacheConfig repositoryCacheConfig, MetricRegistry metricRegistry, EventBus eventBus, AsyncEventRequester asyncEventRequester) {
+        NegativeCache negativeCache = new NegativeCache(repositoryCacheConfig.negativeCacheSize(), repositoryCacheConfig.negativeCacheTtl(), TimeUnit.MILLISECONDS, metricRegistry);
+        eventBus.addEventListener(negativeCache);
+        asyncEventRequester.addReplyListener(negativeCache);
+        return negativeCache;
+    }
+
+    @Provides
+    @Singleton
+    SingleFlight provideSingleFlight(MetricRegistry metricRegistry) {
+        SingleFlight singleFlight = new SingleFlight();
+        metricRegistry.gauge("repository.singleFlight.coalesced", singleFlight::coalescedCount);
+        return singleFlight;
+    }
+
+    @Provides
+    @Singleton
+    UserFetcher provideUserFetcher(@Named(BACKEND) UserFetcher userFetcher, RepositoryCache repositoryCache, NegativeCache negativeCache, SingleFlight singleFlight) {
+        UserFetcher backend = negativeCache.decorate(singleFlight.coalesce(userFetcher));
+        return RequestScope.memoize(repositoryCache.decorate(backend));
+    }
+
+    @Provides
+    @Singleton
+    ProjectFetcher provideProjectFetcher(@Named(BACKEND) ProjectFetcher projectFetcher, RepositoryCache repositoryCache, NegativeCache negativeCache, SingleFlight singleFlight) {
+        ProjectFetcher backend = negativeCache.decorate(singleFlight.coalesce(projectFetcher));
+        return RequestScope.memoize(repositoryCache.decorate(backend));
+    }
+
+    @Provides
+    @Singleton
+    OrganisationFetcher provideOrganisationFetcher(@Named(BACKEND) OrganisationFetcher organisationFetcher, RepositoryCache repositoryCache, NegativeCache negativeCache, SingleFlight singleFlight) {
+        OrganisationFetcher backend = negativeCache.decorate(singleFlight.coalesce(organisationFetcher));
+        return RequestScope.memoize(repositoryCache.decorate(backend));
+    }
+
+    private <T> void bindAsBackend(Binding<T> binding) {
+        Key<T> backendKey = Key.get(binding.getKey().getTypeLiteral(), Names.named(BACKEND));
+        ScopedBindingBuilder builder = binding.acceptTargetVisitor(new DefaultBindingTargetVisitor<T, ScopedBindingBuilder>() {
+            @Override
+            public ScopedBindingBuilder visit(InstanceBinding<? extends T> instanceBinding) {
+                binder().withSource(instanceBinding.getSource()).bind(backendKey).toInstance(instanceBinding.getInstance());
+                return null;
+            }
+
+            @Override
+            public ScopedBindingBuilder visit(ProviderInstanceBinding<? extends T> providerInstanceBinding) {
+                return binder().withSource(providerInstanceBinding.getSource()).bind(backendKey).toProvider(providerInstanceBinding.getUserSuppliedProvider());
+            }
+
+            @Override
+            public ScopedBindingBuilder visit(ProviderKeyBinding<? extends T> providerKeyBinding) {
+                return binder().withSource(providerKeyBinding.getSource()).bind(backendKey).toProvider(providerKeyBinding.getProviderKey());
+            }
+
+            @Override
+            public ScopedBindingBuilder visit(LinkedKeyBinding<? extends T> linkedKeyBinding) {
+                return binder().withSource(linkedKeyBinding.getSource()).bind(backendKey).to(linkedKeyBinding.getLinkedKey());
+            }
+
+            @Override
+            protected ScopedBindingBuilder visitOther(Binding<? extends T> other) {
+                throw new IllegalStateException("Unable to put a cache in front of binding " + other + ".");
+            }
+        });
+        if (builder != null) {
+            binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Void>() {
+                @Override
+                public Void visitEagerSingleton() {
+                    builder.asEagerSingleton();
+                    return null;
+                }
+
+                @Override
+                public Void visitScope(Scope scope) {
+                    builder.in(scope);
+                    return null;
+                }
+
+                @Override
+                public Void visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                    builder.in(scopeAnnotation);
+                    return null;
+                }
+            });
+        }
+    }
+
+}
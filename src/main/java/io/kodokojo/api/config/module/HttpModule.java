@@ -20,21 +20,36 @@ package io.kodokojo.api.config.module;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import io.kodokojo.api.config.SseConfig;
 import io.kodokojo.api.endpoint.HttpEndpoint;
 import io.kodokojo.api.endpoint.JettySupport;
 import io.kodokojo.api.endpoint.UserAuthenticator;
+import io.kodokojo.api.endpoint.sse.ProjectSubscriberIndex;
+import io.kodokojo.api.endpoint.sse.SseDispatcher;
+import io.kodokojo.api.endpoint.sse.SseOverflowPolicy;
 import io.kodokojo.api.endpoint.sse.SseServlet;
+import io.kodokojo.api.endpoint.sse.SseSessionReaper;
+import io.kodokojo.api.endpoint.sse.SseSessionRegistry;
+import io.kodokojo.api.service.ProjectMembershipIndex;
+import io.kodokojo.api.service.authentification.AuthenticationThrottler;
 import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenCredential;
+import io.kodokojo.api.service.metric.MetricRegistry;
 import io.kodokojo.commons.config.ApplicationConfig;
 import io.kodokojo.commons.config.VersionConfig;
 import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
 import io.kodokojo.commons.service.repository.ProjectFetcher;
 import io.kodokojo.commons.service.repository.UserFetcher;
 import io.kodokojo.commons.spark.SparkEndpoint;
 
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpModule extends AbstractModule {
 
@@ -45,15 +60,65 @@ public class HttpModule extends AbstractModule {
 
     @Provides
     @Singleton
-    HttpEndpoint provideHttpEndpoint(EventBus eventBus, EventBuilderFactory eventBuilderFactory, UserAuthenticator<SimpleCredential> userAuthenticator, Set<SparkEndpoint> sparkEndpoints, VersionConfig versionConfig) {
-        return new HttpEndpoint(userAuthenticator, eventBus, eventBuilderFactory, sparkEndpoints, versionConfig);
+    HttpEndpoint provideHttpEndpoint(EventBus eventBus, EventBuilderFactory eventBuilderFactory, UserAuthenticator<SimpleCredential> userAuthenticator, UserAuthenticator<TokenCredential> tokenUserAuthenticator, AuthenticationThrottler authenticationThrottler, Set<SparkEndpoint> sparkEndpoints, VersionConfig versionConfig) {
+        return new HttpEndpoint(userAuthenticator, tokenUserAuthenticator, authenticationThrottler, eventBus, eventBuilderFactory, sparkEndpoints, versionConfig);
     }
 
+    @Provides
+    @Singleton
+    ProjectSubscriberIndex provideProjectSubscriberIndex(MetricRegistry metricRegistry) {
+        ProjectSubscriberIndex subscriberIndex = new ProjectSubscriberIndex();
+        metricRegistry.gauge("sse.subscription.projectConfigurations", subscriberIndex::size);
+        metricRegistry.gauge("sse.subscription.miss", subscriberIndex::missCount);
+        return subscriberIndex;
+    }
+
+    @Provides
+    @Singleton
+    SseSessionRegistry provideSseSessionRegistry(ProjectSubscriberIndex subscriberIndex, MetricRegistry metricRegistry) {
+        SseSessionRegistry sessionRegistry = new SseSessionRegistry(subscriberIndex::disconnect);
+        metricRegistry.gauge("sse.session.live", sessionRegistry::size);
+        return sessionRegistry;
+    }
+
+    @Provides
+    @Singleton
+    SseSessionReaper provideSseSessionReaper(SseSessionRegistry sessionRegistry, SseConfig sseConfig, MetricRegistry metricRegistry, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SseSessionReaper sessionReaper = new SseSessionReaper(sessionRegistry, scheduler, sseConfig.idleTimeout());
+        metricRegistry.gauge("sse.session.reaped", sessionReaper::reapedCount);
+        applicationLifeCycleManager.addService(sessionReaper);
+        return sessionReaper;
+    }
+
+    @Provides
+    @Singleton
+    SseDispatcher provideSseDispatcher(SseSessionRegistry sessionRegistry, SseConfig sseConfig, MetricRegistry metricRegistry, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(sseConfig.writerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        SseOverflowPolicy overflowPolicy = SseOverflowPolicy.valueOf(sseConfig.overflowPolicy().trim().toUpperCase());
+        SseDispatcher dispatcher = new SseDispatcher(sessionRegistry, writers, sseConfig.queueCapacity(), overflowPolicy);
+        metricRegistry.gauge("sse.queue.depth", dispatcher::pendingCount);
+        metricRegistry.gauge("sse.queue.maxDepth", dispatcher::maxPendingCount);
+        metricRegistry.gauge("sse.queue.dropped", dispatcher::droppedCount);
+        metricRegistry.gauge("sse.queue.conflated", dispatcher::conflatedCount);
+        metricRegistry.gauge("sse.queue.disconnected", dispatcher::disconnectedCount);
+        applicationLifeCycleManager.addService(dispatcher);
+        return dispatcher;
+    }
 
     @Provides
     @Singleton
-    SseServlet provideSServlet(UserFetcher userFetcher, ProjectFetcher projectFetcher, EventBus eventBus) {
-        SseServlet sseServlet = new SseServlet(projectFetcher, userFetcher);
+    SseServlet provideSServlet(UserFetcher userFetcher, ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher, UserAuthenticator<TokenCredential> tokenUserAuthenticator, ProjectMembershipIndex projectMembershipIndex, SseSessionRegistry sessionRegistry, ProjectSubscriberIndex subscriberIndex, SseDispatcher dispatcher, EventBus eventBus) {
+        SseServlet sseServlet = new SseServlet(projectFetcher, organisationFetcher, userFetcher, tokenUserAuthenticator, projectMembershipIndex, sessionRegistry, subscriberIndex, dispatcher);
         eventBus.addEventListener(sseServlet);
         return sseServlet;
     }
@@ -61,8 +126,8 @@ public class HttpModule extends AbstractModule {
 
     @Provides
     @Singleton
-    JettySupport provideJettySupport(ApplicationConfig applicationConfig, HttpEndpoint httpEndpoint, SseServlet sseServlet, ApplicationLifeCycleManager applicationLifeCycleManager) {
-        JettySupport jettySupport = new JettySupport(applicationConfig.port(), httpEndpoint, sseServlet);
+    JettySupport provideJettySupport(ApplicationConfig applicationConfig, HttpEndpoint httpEndpoint, SseServlet sseServlet, SseConfig sseConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        JettySupport jettySupport = new JettySupport(applicationConfig.port(), httpEndpoint, sseServlet, sseConfig.heartbeatPeriod());
         applicationLifeCycleManager.addService(jettySupport);
         return jettySupport;
     }
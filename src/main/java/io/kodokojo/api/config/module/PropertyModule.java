@@ -20,7 +20,14 @@ package io.kodokojo.api.config.module;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import io.kodokojo.api.config.AuthenticationConfig;
 import io.kodokojo.api.config.ReCaptchaConfig;
+import io.kodokojo.api.config.EventPublicationConfig;
+import io.kodokojo.api.config.EventRequestConfig;
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.config.SseConfig;
+import io.kodokojo.api.config.UserIdentifierPoolConfig;
+import io.kodokojo.api.config.WarmUpConfig;
 import io.kodokojo.commons.config.properties.PropertyConfig;
 import io.kodokojo.commons.config.properties.PropertyResolver;
 import io.kodokojo.commons.config.properties.provider.*;
@@ -38,6 +45,48 @@ public class PropertyModule extends AbstractModule {
         return createConfig(ReCaptchaConfig.class, valueProvider);
     }
 
+    @Provides
+    @Singleton
+    AuthenticationConfig provideAuthenticationConfig(PropertyValueProvider valueProvider) {
+        return createConfig(AuthenticationConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    RepositoryCacheConfig provideRepositoryCacheConfig(PropertyValueProvider valueProvider) {
+        return createConfig(RepositoryCacheConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    EventRequestConfig provideEventRequestConfig(PropertyValueProvider valueProvider) {
+        return createConfig(EventRequestConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    EventPublicationConfig provideEventPublicationConfig(PropertyValueProvider valueProvider) {
+        return createConfig(EventPublicationConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    SseConfig provideSseConfig(PropertyValueProvider valueProvider) {
+        return createConfig(SseConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    UserIdentifierPoolConfig provideUserIdentifierPoolConfig(PropertyValueProvider valueProvider) {
+        return createConfig(UserIdentifierPoolConfig.class, valueProvider);
+    }
+
+    @Provides
+    @Singleton
+    WarmUpConfig provideWarmUpConfig(PropertyValueProvider valueProvider) {
+        return createConfig(WarmUpConfig.class, valueProvider);
+    }
+
     private <T extends PropertyConfig> T createConfig(Class<T> configClass, PropertyValueProvider valueProvider) {
         PropertyResolver resolver = new PropertyResolver(valueProvider);
         return resolver.createProxy(configClass);
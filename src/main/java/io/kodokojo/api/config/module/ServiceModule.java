@@ -21,14 +21,45 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.config.EventRequestConfig;
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.config.UserIdentifierPoolConfig;
+import io.kodokojo.api.service.CircuitBreaker;
 import io.kodokojo.api.service.ReCaptchaService;
 import io.kodokojo.api.config.ReCaptchaConfig;
+import io.kodokojo.api.service.ProjectLookup;
+import io.kodokojo.api.service.ProjectMembershipIndex;
+import io.kodokojo.api.service.UserIdentifierPool;
+import io.kodokojo.api.service.UserOrganisationRightsView;
+import io.kodokojo.api.endpoint.AsyncEventRequester;
+import io.kodokojo.api.endpoint.EventRequestPolicy;
 import io.kodokojo.api.endpoint.UserAuthenticator;
+import io.kodokojo.api.service.authentification.AuthenticationThrottler;
 import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenCredential;
+import io.kodokojo.api.service.authentification.TokenUserAuthenticator;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
 import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class ServiceModule extends AbstractModule {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceModule.class);
@@ -36,7 +67,128 @@ public class ServiceModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(new TypeLiteral<UserAuthenticator<SimpleCredential>>() {/**/
-        }).toProvider(SimpleUserAuthenticatorProvider.class);
+        }).toProvider(SimpleUserAuthenticatorProvider.class).in(Singleton.class);
+        bind(new TypeLiteral<UserAuthenticator<TokenCredential>>() {/**/
+        }).to(TokenUserAuthenticator.class);
+        bind(TokenUserAuthenticator.class).toProvider(TokenUserAuthenticatorProvider.class).in(Singleton.class);
+    }
+
+    @Provides
+    @Singleton
+    MetricRegistry provideMetricRegistry() {
+        return new MetricRegistry();
+    }
+
+    @Provides
+    @Singleton
+    AsyncEventRequester provideAsyncEventRequester(EventBus eventBus, EventRequestConfig eventRequestConfig, MetricRegistry metricRegistry, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(eventRequestConfig.threads(), eventRequestConfig.threads(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(eventRequestConfig.queueSize()), runnable -> {
+            Thread thread = new Thread(runnable, "event-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        Map<String, EventRequestPolicy> policies = new HashMap<>();
+        policies.put(Event.USER_IDENTIFIER_CREATION_REQUEST, createPolicy("userIdentifierCreation", eventRequestConfig.userIdentifierCreationDeadline(), eventRequestConfig.userIdentifierCreationBulkhead(), eventRequestConfig));
+        policies.put(Event.USER_CREATION_REQUEST, createPolicy("userCreation", eventRequestConfig.userCreationDeadline(), eventRequestConfig.userCreationBulkhead(), eventRequestConfig));
+        policies.put(Event.USER_UPDATE_REQUEST, createPolicy("userUpdate", eventRequestConfig.userUpdateDeadline(), eventRequestConfig.userUpdateBulkhead(), eventRequestConfig));
+        policies.put(Event.ORGANISATION_CREATE_REQUEST, createPolicy("organisationCreation", eventRequestConfig.organisationCreationDeadline(), eventRequestConfig.organisationCreationBulkhead(), eventRequestConfig));
+        policies.put(Event.PROJECTCONFIG_CREATION_REQUEST, createPolicy("projectConfigurationCreation", eventRequestConfig.projectConfigurationCreationDeadline(), eventRequestConfig.projectConfigurationCreationBulkhead(), eventRequestConfig));
+        policies.put(Event.PROJECTCONFIG_START_REQUEST, createPolicy("projectConfigurationStart", eventRequestConfig.projectConfigurationStartDeadline(), eventRequestConfig.projectConfigurationStartBulkhead(), eventRequestConfig));
+        EventRequestPolicy defaultPolicy = createPolicy("default", eventRequestConfig.defaultDeadline(), eventRequestConfig.defaultBulkhead(), eventRequestConfig);
+        AsyncEventRequester asyncEventRequester = new AsyncEventRequester(eventBus, executor, policies, defaultPolicy);
+        asyncEventRequester.policies().forEach(policy -> {
+            metricRegistry.gauge("eventbus.request.bulkhead." + policy.getName() + ".inUse", policy::inUse);
+            metricRegistry.gauge("eventbus.request.bulkhead." + policy.getName() + ".rejected", policy::rejectedCount);
+            CircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+            metricRegistry.gauge("eventbus.request.circuit." + policy.getName() + ".state", () -> circuitBreaker.getState().ordinal());
+            metricRegistry.gauge("eventbus.request.circuit." + policy.getName() + ".transitions", circuitBreaker::transitionCount);
+            metricRegistry.gauge("eventbus.request.circuit." + policy.getName() + ".rejected", circuitBreaker::rejectedCount);
+        });
+        metricRegistry.gauge("eventbus.request.active", asyncEventRequester::activeCount);
+        metricRegistry.gauge("eventbus.request.pending", asyncEventRequester::pendingCount);
+        metricRegistry.gauge("eventbus.request.rejected", asyncEventRequester::rejectedCount);
+        metricRegistry.gauge("eventbus.request.expired", asyncEventRequester::expiredCount);
+        applicationLifeCycleManager.addService(asyncEventRequester);
+        return asyncEventRequester;
+    }
+
+    private static EventRequestPolicy createPolicy(String name, long deadline, int bulkhead, EventRequestConfig eventRequestConfig) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(name, eventRequestConfig.circuitFailureThreshold(), eventRequestConfig.circuitOpenDuration(), eventRequestConfig.circuitHalfOpenRequests(), TimeUnit.MILLISECONDS);
+        return new EventRequestPolicy(name, deadline, bulkhead, circuitBreaker);
+    }
+
+    @Provides
+    @Singleton
+    AuthenticationThrottler provideAuthenticationThrottler(AuthenticationConfig authenticationConfig, MetricRegistry metricRegistry) {
+        AuthenticationThrottler authenticationThrottler = new AuthenticationThrottler(authenticationConfig.throttleSize(),
+                authenticationConfig.throttleMaxFailuresByUsername(),
+                authenticationConfig.throttleMaxFailuresByIp(),
+                authenticationConfig.throttleDecayPeriod(),
+                TimeUnit.MILLISECONDS);
+        metricRegistry.gauge("authentication.failure", authenticationThrottler::failureCount);
+        metricRegistry.gauge("authentication.throttled", authenticationThrottler::rejectedCount);
+        return authenticationThrottler;
+    }
+
+    @Provides
+    @Singleton
+    UserOrganisationRightsView provideUserOrganisationRightsView(OrganisationFetcher organisationFetcher, ProjectFetcher projectFetcher, RepositoryCacheConfig repositoryCacheConfig, MetricRegistry metricRegistry, EventBus eventBus) {
+        UserOrganisationRightsView userOrganisationRightsView = new UserOrganisationRightsView(organisationFetcher, projectFetcher,
+                repositoryCacheConfig.organisationRightsSize(),
+                repositoryCacheConfig.projectConfigurationSize(),
+                repositoryCacheConfig.ttl(),
+                TimeUnit.MILLISECONDS,
+                metricRegistry);
+        eventBus.addEventListener(userOrganisationRightsView);
+        return userOrganisationRightsView;
+    }
+
+    @Provides
+    @Singleton
+    ProjectMembershipIndex provideProjectMembershipIndex(RepositoryCacheConfig repositoryCacheConfig) {
+        return new ProjectMembershipIndex(repositoryCacheConfig.projectConfigurationSize(), repositoryCacheConfig.ttl(), TimeUnit.MILLISECONDS);
+    }
+
+    @Provides
+    @Singleton
+    ProjectLookup provideProjectLookup(ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher, RepositoryCacheConfig repositoryCacheConfig, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        AtomicInteger threadCount = new AtomicInteger();
+        //  Once saturated, parallel fetches run on the thread which handle the request instead of piling up.
+        ExecutorService executorService = new ThreadPoolExecutor(repositoryCacheConfig.lookupThreads(), repositoryCacheConfig.lookupThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(repositoryCacheConfig.lookupQueueSize()), runnable -> {
+            Thread thread = new Thread(runnable, "project-lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        ProjectLookup projectLookup = new ProjectLookup(projectFetcher, organisationFetcher, executorService,
+                repositoryCacheConfig.projectConfigurationSize(),
+                repositoryCacheConfig.lookupLinksTtl(),
+                TimeUnit.MILLISECONDS);
+        applicationLifeCycleManager.addService(projectLookup);
+        return projectLookup;
+    }
+
+    @Provides
+    @Singleton
+    UserIdentifierPool provideUserIdentifierPool(EventBus eventBus, EventBuilderFactory eventBuilderFactory, UserIdentifierPoolConfig userIdentifierPoolConfig, EventRequestConfig eventRequestConfig, AsyncEventRequester asyncEventRequester, MetricRegistry metricRegistry, ApplicationLifeCycleManager applicationLifeCycleManager) {
+        ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-identifier-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CircuitBreaker circuitBreaker = asyncEventRequester.policyOf(Event.USER_IDENTIFIER_CREATION_REQUEST).getCircuitBreaker();
+        UserIdentifierPool userIdentifierPool = new UserIdentifierPool(eventBus, eventBuilderFactory, refillExecutor, circuitBreaker,
+                userIdentifierPoolConfig.size(), userIdentifierPoolConfig.lowWaterMark(), eventRequestConfig.userIdentifierCreationDeadline(),
+                userIdentifierPoolConfig.maxAge());
+        metricRegistry.gauge("user.identifierPool.size", userIdentifierPool::size);
+        metricRegistry.gauge("user.identifierPool.refillLatency", userIdentifierPool::lastRefillLatency);
+        metricRegistry.gauge("user.identifierPool.miss", userIdentifierPool::missCount);
+        metricRegistry.gauge("user.identifierPool.expired", userIdentifierPool::expiredCount);
+        applicationLifeCycleManager.addService(userIdentifierPool);
+        return userIdentifierPool;
     }
 
     @Provides
@@ -18,9 +18,13 @@
 package io.kodokojo.api.config.module;
 
 import com.google.inject.Provider;
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.service.repository.UserFetcher;
 import io.kodokojo.api.service.authentification.SimpleCredential;
 import io.kodokojo.api.service.authentification.SimpleUserAuthenticator;
+import io.kodokojo.api.endpoint.AsyncEventRequester;
 import io.kodokojo.api.endpoint.UserAuthenticator;
 
 import javax.inject.Inject;
@@ -31,14 +35,33 @@ public class SimpleUserAuthenticatorProvider implements Provider<UserAuthenticat
 
     private final UserFetcher userFetcher;
 
+    private final AuthenticationConfig authenticationConfig;
+
+    private final MetricRegistry metricRegistry;
+
+    private final EventBus eventBus;
+
+    private final AsyncEventRequester asyncEventRequester;
+
     @Inject
-    public SimpleUserAuthenticatorProvider(UserFetcher userFetcher) {
+    public SimpleUserAuthenticatorProvider(UserFetcher userFetcher, AuthenticationConfig authenticationConfig, MetricRegistry metricRegistry, EventBus eventBus, AsyncEventRequester asyncEventRequester) {
         requireNonNull(userFetcher, "userFetcher must be defined.");
+        requireNonNull(authenticationConfig, "authenticationConfig must be defined.");
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        requireNonNull(eventBus, "eventBus must be defined.");
+        requireNonNull(asyncEventRequester, "asyncEventRequester must be defined.");
         this.userFetcher = userFetcher;
+        this.authenticationConfig = authenticationConfig;
+        this.metricRegistry = metricRegistry;
+        this.eventBus = eventBus;
+        this.asyncEventRequester = asyncEventRequester;
     }
 
     @Override
     public UserAuthenticator<SimpleCredential> get() {
-        return new SimpleUserAuthenticator(userFetcher);
+        SimpleUserAuthenticator userAuthenticator = new SimpleUserAuthenticator(userFetcher, authenticationConfig, metricRegistry);
+        eventBus.addEventListener(userAuthenticator);
+        asyncEventRequester.addReplyListener(userAuthenticator);
+        return userAuthenticator;
     }
 }
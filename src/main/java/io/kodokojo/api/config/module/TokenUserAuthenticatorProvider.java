@@ -0,0 +1,58 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config.module;
+
+import com.google.inject.Provider;
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.service.authentification.TokenUserAuthenticator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+public class TokenUserAuthenticatorProvider implements Provider<TokenUserAuthenticator> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenUserAuthenticatorProvider.class);
+
+    private final AuthenticationConfig authenticationConfig;
+
+    @Inject
+    public TokenUserAuthenticatorProvider(AuthenticationConfig authenticationConfig) {
+        requireNonNull(authenticationConfig, "authenticationConfig must be defined.");
+        this.authenticationConfig = authenticationConfig;
+    }
+
+    @Override
+    public TokenUserAuthenticator get() {
+        byte[] secret;
+        if (isBlank(authenticationConfig.tokenSecret())) {
+            LOGGER.warn("No authentication.token.secret defined, generate a random one. Tokens won't be accepted by other instances nor after a restart.");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = authenticationConfig.tokenSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        return new TokenUserAuthenticator(secret, authenticationConfig.tokenTtl(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.config.module.endpoint;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
+import io.kodokojo.api.endpoint.EventRequestHealthSparkEndpoint;
+import io.kodokojo.api.endpoint.MetricSparkEndpoint;
+import io.kodokojo.commons.spark.SparkEndpoint;
+
+public class MetricEndpointModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        Multibinder<SparkEndpoint> sparkEndpointBinder = Multibinder.newSetBinder(binder(), SparkEndpoint.class);
+        sparkEndpointBinder.addBinding().to(MetricSparkEndpoint.class);
+        sparkEndpointBinder.addBinding().to(EventRequestHealthSparkEndpoint.class);
+    }
+
+}
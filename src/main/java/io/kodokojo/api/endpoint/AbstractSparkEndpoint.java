@@ -44,6 +44,11 @@ public abstract class AbstractSparkEndpoint implements SparkEndpoint {
 
     protected static final String JSON_CONTENT_TYPE = "application/json";
 
+    /**
+     * Name of request attribute which contain the {@link User} authenticated by the security filter.
+     */
+    protected static final String REQUESTER_ATTRIBUTE = "kodokojo.requester";
+
     protected final ThreadLocal<Gson> localGson = new ThreadLocal<Gson>() {
         @Override
         protected Gson initialValue() {
@@ -69,24 +74,15 @@ public abstract class AbstractSparkEndpoint implements SparkEndpoint {
     }
 
     protected SimpleCredential extractCredential(Request request) {
-        BasicAuthenticator basicAuthenticator = new BasicAuthenticator();
-        try {
-            basicAuthenticator.handle(request, null);
-            if (basicAuthenticator.isProvideCredentials()) {
-                return new SimpleCredential(basicAuthenticator.getUsername(), basicAuthenticator.getPassword());
-            }
-        } catch (Exception e) {
-            LOGGER.debug("Unable to retrieve credentials", e);
-        }
-        return null;
+        return BasicAuthenticator.extractCredential(request);
     }
 
+    /**
+     * @return The {@link User} authenticated by the security filter, <code>null</code> if the request don't provide
+     * valid credentials.
+     */
     protected User getRequester(Request request) {
-        SimpleCredential credential = extractCredential(request);
-        if (credential != null) {
-            return userAuthenticator.authenticate(credential);
-        }
-        return null;
+        return request.attribute(REQUESTER_ATTRIBUTE);
     }
 
     private interface JsonGetter<T> {
@@ -0,0 +1,74 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * A route which may be requested without providing any credentials.
+ */
+public class AnonymousRoute {
+
+    private final String methodName;
+
+    private final String pathRegexp;
+
+    public AnonymousRoute(String methodName, String pathRegexp) {
+        if (isBlank(methodName)) {
+            throw new IllegalArgumentException("methodName must be defined.");
+        }
+        if (isBlank(pathRegexp)) {
+            throw new IllegalArgumentException("pathRegexp must be defined.");
+        }
+        this.methodName = methodName;
+        this.pathRegexp = pathRegexp;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getPathRegexp() {
+        return pathRegexp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AnonymousRoute that = (AnonymousRoute) o;
+
+        return methodName.equals(that.methodName) && pathRegexp.equals(that.pathRegexp);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = methodName.hashCode();
+        result = 31 * result + pathRegexp.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AnonymousRoute{" +
+                "methodName='" + methodName + '\'' +
+                ", pathRegexp='" + pathRegexp + '\'' +
+                '}';
+    }
+}
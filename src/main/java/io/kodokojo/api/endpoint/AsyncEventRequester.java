@@ -0,0 +1,419 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.CircuitBreaker;
+import io.kodokojo.api.service.ReplyListener;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+import spark.ResponseTransformer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+import static spark.Spark.halt;
+
+/**
+ * Request an {@link Event} on the {@link EventBus} without holding a Jetty worker thread while waiting for the reply.
+ * <p>
+ * The HTTP request is suspended using {@link AsyncContext}, the reply is awaited on a bounded pool dedicated to
+ * event requests until the deadline of its event type, then the {@link ReplyHandler} build the response and the
+ * request is completed. When the {@link EventRequestPolicy} of the event type or the pool is saturated, the request
+ * is answered with a 503. When the container doesn't support asynchronous requests, the request is handled
+ * synchronously.
+ * </p>
+ * <p>
+ * {@link EventBus#request} is blocking, so waiting still hold a thread, but never a Jetty one: at most the size of the
+ * pool threads are blocked waiting for replies, each at most until the deadline of its event type, and at most the
+ * capacity of the pool queue requests wait for one of them.
+ * </p>
+ */
+public class AsyncEventRequester implements ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncEventRequester.class);
+
+    /**
+     * Time given to the reply handler to complete the response once the event request timed out.
+     */
+    private static final long COMPLETION_GRACE_MILLIS = 5000;
+
+    /**
+     * Name of the custom header which contain the deadline of a request, in milliseconds since epoch.
+     */
+    public static final String DEADLINE_CUSTOM_HEADER = "deadline";
+
+    private final EventBus eventBus;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, EventRequestPolicy> policies;
+
+    private final EventRequestPolicy defaultPolicy;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder expiredCount = new LongAdder();
+
+    private final List<ReplyListener> replyListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param eventBus The event bus used to request events.
+     * @param executor Bounded pool of threads which wait for the replies.
+     * @param policies Policy of requests, by event type.
+     * @param defaultPolicy Policy shared by the requests of event types absent from policies.
+     */
+    public AsyncEventRequester(EventBus eventBus, ThreadPoolExecutor executor, Map<String, EventRequestPolicy> policies, EventRequestPolicy defaultPolicy) {
+        requireNonNull(eventBus, "eventBus must be defined.");
+        requireNonNull(executor, "executor must be defined.");
+        requireNonNull(policies, "policies must be defined.");
+        requireNonNull(defaultPolicy, "defaultPolicy must be defined.");
+        this.eventBus = eventBus;
+        this.executor = executor;
+        this.policies = new HashMap<>(policies);
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * Handle the reply of an event request.
+     */
+    @FunctionalInterface
+    public interface ReplyHandler {
+
+        /**
+         * @param reply The reply, <code>null</code> if no reply had been received before the deadline.
+         * @return The body of the response. {@link spark.Spark#halt} may be used as in any route.
+         */
+        Object handle(Event reply) throws Exception;
+
+    }
+
+    /**
+     * @param replyListener Notified of each received reply, before its {@link ReplyHandler}.
+     */
+    public void addReplyListener(ReplyListener replyListener) {
+        requireNonNull(replyListener, "replyListener must be defined.");
+        replyListeners.add(replyListener);
+    }
+
+    /**
+     * Request an event and build the response of the current route from its reply.
+     * <p>
+     * The absolute deadline of the request, in milliseconds since epoch, is added to the event as
+     * {@link #DEADLINE_CUSTOM_HEADER} custom header so consumers may drop work nobody waits for anymore.
+     * </p>
+     * @param request The request of the current route.
+     * @param response The response of the current route, may be used by the handler to define status and headers.
+     * @param eventType The type of event to request, define the deadline and the bulkhead of the request.
+     * @param eventBuilder Builder of the event to request.
+     * @param transformer Transformer the route use to render its result, <code>null</code> to render it as a String.
+     * @param handler Handler which build the response from the reply.
+     * @return The value the route must return.
+     */
+    public Object request(Request request, Response response, String eventType, EventBuilder eventBuilder, ResponseTransformer transformer, ReplyHandler handler) throws Exception {
+        requireNonNull(request, "request must be defined.");
+        if (isBlank(eventType)) {
+            throw new IllegalArgumentException("eventType must be defined.");
+        }
+        requireNonNull(eventBuilder, "eventBuilder must be defined.");
+        requireNonNull(handler, "handler must be defined.");
+
+        EventRequestPolicy policy = policyOf(eventType);
+        CircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+        if (!circuitBreaker.tryAcquire()) {
+            LOGGER.debug("Circuit of event {} is open, reject request.", eventType);
+            response.header("Retry-After", Long.toString(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.remainingOpenTime()))));
+            halt(503, "Service temporarily unavailable.");
+            return "";
+        }
+        if (!policy.tryAcquire()) {
+            circuitBreaker.onCancel();
+            LOGGER.warn("Too many pending requests of event {}, reject request.", eventType);
+            response.header("Retry-After", "1");
+            halt(503, "Too many pending requests.");
+            return "";
+        }
+
+        long timeout = policy.getTimeout();
+        long deadline = System.currentTimeMillis() + timeout;
+        Event event;
+        try {
+            event = eventBuilder.setEventType(eventType)
+                    .addCustomHeader(DEADLINE_CUSTOM_HEADER, Long.toString(deadline))
+                    .build();
+        } catch (RuntimeException e) {
+            circuitBreaker.onCancel();
+            policy.release();
+            throw e;
+        }
+
+        HttpServletRequest raw = request.raw();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void> released = (CompletableFuture<Void>) raw.getAttribute(DeferredResponseFilter.RELEASED_ATTRIBUTE);
+        if (released == null || !raw.isAsyncSupported()) {
+            Event reply;
+            try {
+                reply = awaitReply(event, eventType, deadline, circuitBreaker);
+            } finally {
+                policy.release();
+            }
+            return handler.handle(reply);
+        }
+
+        if (executor.getQueue().remainingCapacity() == 0) {
+            //  Reject before suspending the request, so the response is written by the current dispatch.
+            onRejected(eventType, policy, circuitBreaker);
+            response.header("Retry-After", "1");
+            halt(503, "Too many pending requests.");
+            return "";
+        }
+
+        AsyncContext asyncContext = raw.startAsync();
+        asyncContext.setTimeout(timeout + COMPLETION_GRACE_MILLIS);
+        AtomicBoolean completed = new AtomicBoolean(false);
+        asyncContext.addListener(new TimeoutListener(asyncContext, completed));
+        try {
+            executor.execute(() -> {
+                Event reply = null;
+                try {
+                    reply = awaitReply(event, eventType, deadline, circuitBreaker);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to request event {}.", eventType, e);
+                } finally {
+                    policy.release();
+                }
+                Event result = reply;
+                released.thenRun(() -> complete(asyncContext, completed, transformer, handler, result));
+            });
+        } catch (RejectedExecutionException e) {
+            //  Pool saturated since the check, the request is already suspended so it is answered as a deferred one.
+            onRejected(eventType, policy, circuitBreaker);
+            released.thenRun(() -> complete(asyncContext, completed, null, reply -> {
+                ((HttpServletResponse) asyncContext.getResponse()).setHeader("Retry-After", "1");
+                halt(503, "Too many pending requests.");
+                return "";
+            }, null));
+        }
+        raw.setAttribute(DeferredResponseFilter.DEFERRED_ATTRIBUTE, Boolean.TRUE);
+        return "";
+    }
+
+    /**
+     * @param eventType A type of event.
+     * @return The policy applied to the requests of given event type.
+     */
+    public EventRequestPolicy policyOf(String eventType) {
+        return policies.getOrDefault(eventType, defaultPolicy);
+    }
+
+    /**
+     * @return All the policies, including the default one.
+     */
+    public Collection<EventRequestPolicy> policies() {
+        Set<EventRequestPolicy> res = new LinkedHashSet<>(policies.values());
+        res.add(defaultPolicy);
+        return res;
+    }
+
+    /**
+     * @param eventType A type of event.
+     * @return The time in milliseconds given to a request of given event type to be replied.
+     */
+    public long timeoutOf(String eventType) {
+        return policyOf(eventType).getTimeout();
+    }
+
+    private void onRejected(String eventType, EventRequestPolicy policy, CircuitBreaker circuitBreaker) {
+        circuitBreaker.onCancel();
+        policy.release();
+        rejectedCount.increment();
+        LOGGER.warn("Too many pending event requests, reject request of event {}.", eventType);
+    }
+
+    private Event awaitReply(Event event, String eventType, long deadline, CircuitBreaker circuitBreaker) throws InterruptedException {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            circuitBreaker.onCancel();
+            expiredCount.increment();
+            LOGGER.debug("Deadline of event {} expired before being requested.", eventType);
+            return null;
+        }
+        Event reply;
+        try {
+            reply = eventBus.request(event, (int) Math.min(remaining, Integer.MAX_VALUE), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            circuitBreaker.onCancel();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        if (reply != null) {
+            notifyReplyListeners(event, reply);
+        }
+        if (reply == null) {
+            circuitBreaker.onFailure();
+        } else if (System.currentTimeMillis() > deadline) {
+            //  Nobody wait for this reply anymore, don't spend time to read it.
+            circuitBreaker.onFailure();
+            expiredCount.increment();
+            LOGGER.debug("Discard reply of event {} received after its deadline.", eventType);
+            return null;
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return reply;
+    }
+
+    private void notifyReplyListeners(Event request, Event reply) {
+        for (ReplyListener replyListener : replyListeners) {
+            try {
+                replyListener.onReply(request, reply);
+            } catch (RuntimeException e) {
+                LOGGER.error("Reply listener {} fail to handle reply of event {}.", replyListener, request.getEventType(), e);
+            }
+        }
+    }
+
+    private void complete(AsyncContext asyncContext, AtomicBoolean completed, ResponseTransformer transformer, ReplyHandler handler, Event reply) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        try {
+            String body;
+            try {
+                Object result = handler.handle(reply);
+                if (result == null) {
+                    body = null;
+                } else {
+                    body = transformer == null ? result.toString() : transformer.render(result);
+                }
+            } catch (HaltException e) {
+                response.setStatus(e.statusCode());
+                body = e.body();
+            }
+            write(response, body);
+        } catch (Exception e) {
+            LOGGER.error("Unable to complete response from reply {}.", reply == null ? null : reply.getEventType(), e);
+            if (!response.isCommitted()) {
+                response.setStatus(500);
+            }
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    private static void write(HttpServletResponse response, String body) throws IOException {
+        if (body != null && !body.isEmpty()) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    public int pendingCount() {
+        return executor.getQueue().size();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private static class TimeoutListener implements AsyncListener {
+
+        private final AsyncContext asyncContext;
+
+        private final AtomicBoolean completed;
+
+        TimeoutListener(AsyncContext asyncContext, AtomicBoolean completed) {
+            this.asyncContext = asyncContext;
+            this.completed = completed;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (completed.compareAndSet(false, true)) {
+                ((HttpServletResponse) asyncContext.getResponse()).setStatus(504);
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            // Nothing to do.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            completed.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            // Nothing to do.
+        }
+    }
+
+}
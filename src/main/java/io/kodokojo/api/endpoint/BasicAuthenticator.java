@@ -17,38 +17,53 @@
  */
 package io.kodokojo.api.endpoint;
 
+import io.kodokojo.api.service.authentification.SimpleCredential;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import spark.Filter;
 import spark.Request;
-import spark.Response;
 
-import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 
-public class BasicAuthenticator implements Filter {
+/**
+ * Stateless parser of <code>Basic</code> Authorization header as defined in RFC 7617.
+ * Credentials are decoded as UTF-8 and split on the first colon, so a password may contain a colon.
+ */
+public final class BasicAuthenticator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BasicAuthenticator.class);
 
     public static final String AUTHORIZATION_HEADER_NAME = "Authorization";
 
-    private String username;
+    private static final String BASIC_SCHEME = "Basic ";
 
-    private String password;
+    private static final int MAX_BUFFER_SIZE = 4096;
 
-    @Override
-    public void handle(Request request, Response response) throws Exception {
-        String authorization = request.headers(AUTHORIZATION_HEADER_NAME);
-            if (isNotBlank(authorization)) {
-            String[] split = explodeUserAndPassword(authorization);
-            if (split != null && split.length == 2) {
-                username = split[0];
-                password = split[1];
-            }
+    private static final byte[] BASE64_DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private static final ThreadLocal<byte[]> LOCAL_BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
 
-        }  else if (LOGGER.isDebugEnabled()) {
+    private BasicAuthenticator() {
+        // Utility class.
+    }
+
+    public static SimpleCredential extractCredential(Request request) {
+        String authorization = request.headers(AUTHORIZATION_HEADER_NAME);
+        if (isNotBlank(authorization)) {
+            return extractCredential(authorization);
+        } else if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Basic Authorization header not found.");
             if (LOGGER.isTraceEnabled()) {
                 LOGGER.trace("List of Header of current request {}", StringUtils.join(request.headers(), ","));
@@ -56,27 +71,90 @@ public class BasicAuthenticator implements Filter {
                 LOGGER.trace("List of params : {}", StringUtils.join(request.queryParams(), ","));
             }
         }
+        return null;
     }
 
-    public boolean isProvideCredentials() {
-        return isNotBlank(username) && isNotBlank(password);
-    }
-
-    public String getUsername() {
-        return username;
+    /**
+     * Parse a Basic Authorization header value.
+     * @param headerValue The value of Authorization header.
+     * @return The credential contained in header, <code>null</code> if header isn't a valid Basic Authorization header.
+     */
+    public static SimpleCredential extractCredential(String headerValue) {
+        if (headerValue == null || !headerValue.regionMatches(true, 0, BASIC_SCHEME, 0, BASIC_SCHEME.length())) {
+            return null;
+        }
+        int offset = BASIC_SCHEME.length();
+        int end = headerValue.length();
+        while (offset < end && headerValue.charAt(offset) == ' ') {
+            offset++;
+        }
+        while (end > offset && headerValue.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int maxDecodedLength = ((end - offset) / 4 + 1) * 3;
+        byte[] buffer = LOCAL_BUFFER.get();
+        if (buffer.length < maxDecodedLength) {
+            buffer = new byte[maxDecodedLength];
+            if (maxDecodedLength <= MAX_BUFFER_SIZE) {
+                LOCAL_BUFFER.set(buffer);
+            }
+        }
+        try {
+            return decodeCredential(headerValue, offset, end, buffer);
+        } finally {
+            //  Buffer is reused by the thread, don't keep the decoded plaintext credential in it.
+            Arrays.fill(buffer, 0, maxDecodedLength, (byte) 0);
+        }
     }
 
-    public String getPassword() {
-        return password;
+    private static SimpleCredential decodeCredential(String headerValue, int offset, int end, byte[] buffer) {
+        int length = decodeBase64(headerValue, offset, end, buffer);
+        if (length < 0) {
+            return null;
+        }
+        int separator = -1;
+        for (int i = 0; i < length && separator < 0; i++) {
+            if (buffer[i] == ':') {
+                separator = i;
+            }
+        }
+        if (separator <= 0 || separator == length - 1) {
+            return null;
+        }
+        String username = new String(buffer, 0, separator, StandardCharsets.UTF_8);
+        String password = new String(buffer, separator + 1, length - separator - 1, StandardCharsets.UTF_8);
+        if (isBlank(username) || isBlank(password)) {
+            return null;
+        }
+        return new SimpleCredential(username, password);
     }
 
-    public static String[] explodeUserAndPassword(String headerValue) {
-        if (StringUtils.isNotBlank(headerValue) && headerValue.startsWith("Basic ")) {
-            String encoded = headerValue.substring("Basic ".length());
-            String decoded = new String(Base64.getDecoder().decode(encoded));
-            String[] split = decoded.split(":");
-            return split;
+    private static int decodeBase64(String value, int offset, int end, byte[] destination) {
+        int padding = 0;
+        while (end > offset && value.charAt(end - 1) == '=' && padding < 2) {
+            end--;
+            padding++;
         }
-        return null;
+        if ((end - offset) % 4 == 1) {
+            return -1;
+        }
+        int bits = 0;
+        int bitCount = 0;
+        int length = 0;
+        for (int i = offset; i < end; i++) {
+            char c = value.charAt(i);
+            int decoded = c < BASE64_DECODE_TABLE.length ? BASE64_DECODE_TABLE[c] : -1;
+            if (decoded < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | decoded;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                destination[length++] = (byte) (bits >> bitCount);
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+        return length;
     }
 }
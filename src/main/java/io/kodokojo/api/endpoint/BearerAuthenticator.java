@@ -0,0 +1,52 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.authentification.TokenCredential;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Stateless parser of <code>Bearer</code> Authorization header as defined in RFC 6750.
+ */
+public final class BearerAuthenticator {
+
+    private static final String BEARER_SCHEME = "Bearer ";
+
+    private BearerAuthenticator() {
+        // Utility class.
+    }
+
+    public static boolean isBearer(String headerValue) {
+        return headerValue != null && headerValue.regionMatches(true, 0, BEARER_SCHEME, 0, BEARER_SCHEME.length());
+    }
+
+    /**
+     * Parse a Bearer Authorization header value.
+     * @param headerValue The value of Authorization header.
+     * @return The token contained in header, <code>null</code> if header isn't a Bearer Authorization header.
+     */
+    public static TokenCredential extractCredential(String headerValue) {
+        if (!isBearer(headerValue)) {
+            return null;
+        }
+        String token = headerValue.substring(BEARER_SCHEME.length()).trim();
+        return isBlank(token) ? null : new TokenCredential(token);
+    }
+
+}
@@ -17,41 +17,32 @@
  */
 package io.kodokojo.api.endpoint;
 
-import io.kodokojo.commons.service.BrickFactory;
-import io.kodokojo.commons.dto.BrickConfigDto;
+import io.kodokojo.api.service.BrickCatalog;
 import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
-import io.kodokojo.commons.model.BrickConfiguration;
 import io.kodokojo.api.service.authentification.SimpleCredential;
 
 import javax.inject.Inject;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 import static spark.Spark.get;
 
 public class BrickSparkEndpoint extends AbstractSparkEndpoint {
 
-    private final BrickFactory brickFactory;
+    private final BrickCatalog brickCatalog;
 
     @Inject
-    public BrickSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, BrickFactory brickFactory) {
+    public BrickSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, BrickCatalog brickCatalog) {
         super(userAuthenticator, eventBus, eventBuilderFactory);
-        if (brickFactory == null) {
-            throw new IllegalArgumentException("brickFactory must be defined.");
+        if (brickCatalog == null) {
+            throw new IllegalArgumentException("brickCatalog must be defined.");
         }
-        this.brickFactory = brickFactory;
+        this.brickCatalog = brickCatalog;
     }
 
     @Override
     public void configure() {
 
-        get(BASE_API + "/brick", JSON_CONTENT_TYPE, ((request, response) -> {
-            List<BrickConfiguration> brickConfigurations = brickFactory.listBrickAvailable();
-            List<BrickConfigDto> result = brickConfigurations.stream().map(b -> new BrickConfigDto(b.getName(), b.getType().name(), b.getVersion())).collect(Collectors.toList());
-            return result;
-        }), jsonResponseTransformer);
+        get(BASE_API + "/brick", JSON_CONTENT_TYPE, ((request, response) -> brickCatalog.getBricks()), jsonResponseTransformer);
 
     }
 }
@@ -0,0 +1,184 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Allow a route to complete its response once the current dispatch is over.
+ * <p>
+ * A route which marks the request as deferred keeps Spark from writing, flushing and closing the response when the
+ * route returns. The {@link CompletableFuture} stored in {@link #RELEASED_ATTRIBUTE} completes once the dispatch
+ * returned to the container, from this point the response may be written by any thread.
+ * </p>
+ */
+public class DeferredResponseFilter implements Filter {
+
+    /**
+     * Name of request attribute set by a route which complete its response later.
+     */
+    public static final String DEFERRED_ATTRIBUTE = "kodokojo.deferred";
+
+    /**
+     * Name of request attribute which contain a <code>CompletableFuture&lt;Void&gt;</code> completed once the dispatch returned.
+     */
+    public static final String RELEASED_ATTRIBUTE = "kodokojo.released";
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Nothing to do.
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        request.setAttribute(RELEASED_ATTRIBUTE, released);
+        try {
+            chain.doFilter(request, new DeferrableResponse((HttpServletRequest) request, (HttpServletResponse) response));
+        } finally {
+            request.removeAttribute(DEFERRED_ATTRIBUTE);
+            released.complete(null);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do.
+    }
+
+    /**
+     * Ignore any attempt to write or commit the response while the request is deferred and the dispatch still running.
+     */
+    private static class DeferrableResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        DeferrableResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        private boolean isDeferred() {
+            return Boolean.TRUE.equals(request.getAttribute(DEFERRED_ATTRIBUTE));
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            if (!isDeferred()) {
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            if (!isDeferred()) {
+                super.sendError(sc);
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            if (!isDeferred()) {
+                super.sendError(sc, msg);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            if (!isDeferred()) {
+                super.setContentType(type);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!isDeferred()) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!isDeferred()) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!isDeferred()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return isDeferred() ? DiscardOutputStream.INSTANCE : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return isDeferred() ? new PrintWriter(new OutputStreamWriter(DiscardOutputStream.INSTANCE, StandardCharsets.UTF_8)) : super.getWriter();
+        }
+    }
+
+    private static class DiscardOutputStream extends ServletOutputStream {
+
+        private static final DiscardOutputStream INSTANCE = new DiscardOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            // Nothing to write.
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            // Discarded.
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // Discarded.
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.CircuitBreaker;
+import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.healthcheck.HttpHealthCheckEndpoint;
+
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+import static spark.Spark.get;
+
+/**
+ * Expose the state of the circuit of each event type requested by the API.
+ * The API stay <code>UP</code> while a circuit is open, but is <code>DEGRADED</code>: routes which request this event type fail fast.
+ */
+public class EventRequestHealthSparkEndpoint extends AbstractSparkEndpoint implements AnonymousRouteProvider {
+
+    public static final String EVENT_REQUEST_HEALTHCHECK_PATH = HttpHealthCheckEndpoint.HEALTHCHECK_PATH + "/eventbus";
+
+    private final AsyncEventRequester asyncEventRequester;
+
+    @Inject
+    public EventRequestHealthSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, AsyncEventRequester asyncEventRequester) {
+        super(userAuthenticator, eventBus, eventBuilderFactory);
+        requireNonNull(asyncEventRequester, "asyncEventRequester must be defined.");
+        this.asyncEventRequester = asyncEventRequester;
+    }
+
+    @Override
+    public void configure() {
+        get(EVENT_REQUEST_HEALTHCHECK_PATH, JSON_CONTENT_TYPE, (request, response) -> health(), jsonResponseTransformer);
+    }
+
+    @Override
+    public Set<AnonymousRoute> anonymousRoutes() {
+        return Collections.singleton(new AnonymousRoute("GET", EVENT_REQUEST_HEALTHCHECK_PATH));
+    }
+
+    Map<String, Object> health() {
+        Map<String, Object> circuits = new TreeMap<>();
+        boolean degraded = false;
+        for (EventRequestPolicy policy : asyncEventRequester.policies()) {
+            CircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+            CircuitBreaker.State state = circuitBreaker.getState();
+            degraded |= state != CircuitBreaker.State.CLOSED;
+            Map<String, Object> circuit = new HashMap<>();
+            circuit.put("state", state.name());
+            circuit.put("transitions", circuitBreaker.transitionCount());
+            circuit.put("rejected", circuitBreaker.rejectedCount());
+            circuits.put(policy.getName(), circuit);
+        }
+        Map<String, Object> res = new HashMap<>();
+        res.put("status", degraded ? "DEGRADED" : "UP");
+        res.put("circuits", circuits);
+        return res;
+    }
+
+}
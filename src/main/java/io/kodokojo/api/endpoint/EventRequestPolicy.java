@@ -0,0 +1,112 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.CircuitBreaker;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Define how the requests of an event type are made: the time given to be replied, and the maximum number of
+ * requests waiting for a reply at the same time. This bulkhead keeps a flood of slow requests of one event type
+ * from starving the requests of other event types. The {@link CircuitBreaker} stops requesting a backend which
+ * doesn't reply anymore.
+ */
+public class EventRequestPolicy {
+
+    private final String name;
+
+    private final long timeout;
+
+    private final int maxConcurrentRequests;
+
+    private final Semaphore permits;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param name Name of the policy, used in metrics.
+     * @param timeout Time in milliseconds given to a request to be replied.
+     * @param maxConcurrentRequests Maximum number of requests waiting for a reply at the same time.
+     * @param circuitBreaker Circuit breaker of the requests.
+     */
+    public EventRequestPolicy(String name, long timeout, int maxConcurrentRequests, CircuitBreaker circuitBreaker) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be greater than 0.");
+        }
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be greater than 0.");
+        }
+        requireNonNull(circuitBreaker, "circuitBreaker must be defined.");
+        this.name = name;
+        this.timeout = timeout;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Try to enter the bulkhead without waiting.
+     * @return <code>true</code> if a request may be made, {@link #release()} must then be called once replied.
+     */
+    public boolean tryAcquire() {
+        boolean acquired = permits.tryAcquire();
+        if (!acquired) {
+            rejectedCount.increment();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int inUse() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+}
@@ -22,7 +22,9 @@ import io.kodokojo.commons.config.VersionConfig;
 import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.model.User;
+import io.kodokojo.api.service.authentification.AuthenticationThrottler;
 import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenCredential;
 import io.kodokojo.commons.service.healthcheck.HttpHealthCheckEndpoint;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
 import io.kodokojo.commons.spark.SparkEndpoint;
@@ -34,11 +36,12 @@ import spark.Spark;
 import spark.servlet.SparkApplication;
 
 import javax.inject.Inject;
+import java.util.HashSet;
 import java.util.Set;
 
 import static spark.Spark.*;
 
-public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplication {
+public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplication, AnonymousRouteProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpEndpoint.class);
 
@@ -46,9 +49,21 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
 
     private final VersionConfig versionConfig;
 
+    private final RouteWhitelist routeWhitelist;
+
+    private final UserAuthenticator<TokenCredential> tokenUserAuthenticator;
+
+    private final AuthenticationThrottler authenticationThrottler;
+
     @Inject
-    public HttpEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, Set<SparkEndpoint> sparkEndpoints, VersionConfig versionConfig) {
+    public HttpEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, UserAuthenticator<TokenCredential> tokenUserAuthenticator, AuthenticationThrottler authenticationThrottler, EventBus eventBus, EventBuilderFactory eventBuilderFactory, Set<SparkEndpoint> sparkEndpoints, VersionConfig versionConfig) {
         super(userAuthenticator, eventBus,eventBuilderFactory);
+        if (tokenUserAuthenticator == null) {
+            throw new IllegalArgumentException("tokenUserAuthenticator must be defined.");
+        }
+        if (authenticationThrottler == null) {
+            throw new IllegalArgumentException("authenticationThrottler must be defined.");
+        }
         if (sparkEndpoints == null) {
             throw new IllegalArgumentException("sparkEndpoints must be defined.");
         }
@@ -57,6 +72,30 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
         }
         this.sparkEndpoints = sparkEndpoints;
         this.versionConfig = versionConfig;
+        this.tokenUserAuthenticator = tokenUserAuthenticator;
+        this.authenticationThrottler = authenticationThrottler;
+        this.routeWhitelist = createRouteWhitelist();
+    }
+
+    @Override
+    public Set<AnonymousRoute> anonymousRoutes() {
+        Set<AnonymousRoute> res = new HashSet<>();
+        res.add(new AnonymousRoute("GET", HttpHealthCheckEndpoint.HEALTHCHECK_PATH));
+        res.add(new AnonymousRoute("GET", BASE_API));
+        //res.add(new AnonymousRoute("GET", BASE_API + "/event(/)?"));
+        res.add(new AnonymousRoute("GET", BASE_API + "/doc(/)?.*"));
+        return res;
+    }
+
+    private RouteWhitelist createRouteWhitelist() {
+        Set<AnonymousRoute> anonymousRoutes = new HashSet<>(anonymousRoutes());
+        sparkEndpoints.stream()
+                .filter(sparkEndpoint -> sparkEndpoint instanceof AnonymousRouteProvider)
+                .forEach(sparkEndpoint -> anonymousRoutes.addAll(((AnonymousRouteProvider) sparkEndpoint).anonymousRoutes()));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Following routes don't require authentication: {}", anonymousRoutes);
+        }
+        return new RouteWhitelist(anonymousRoutes);
     }
 
     @Override
@@ -84,7 +123,7 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
     protected void logging(Request request, Response response) {
 
         if (LOGGER.isDebugEnabled() &&
-                !requestMatch("GET", HttpHealthCheckEndpoint.HEALTHCHECK_PATH, request)) {
+                !("GET".equals(request.requestMethod()) && HttpHealthCheckEndpoint.HEALTHCHECK_PATH.equals(request.pathInfo()))) {
             LOGGER.debug("Ip {} request url {}", request.ip(), request.url());
             if (LOGGER.isTraceEnabled()) {
                 LOGGER.trace("Request schemas {}", request.scheme());
@@ -94,25 +133,16 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
     }
 
     protected void securityCheck(Request request, Response response) throws Exception {
-        boolean authenticationRequired = true;
         // White list of url which not require to have an identifier.
-        if (requestMatch("POST", BASE_API + "/user", request) ||
-                requestMatch("GET", HttpHealthCheckEndpoint.HEALTHCHECK_PATH, request) ||
-                requestMatch("GET", BASE_API, request) ||
-                //requestMatch("GET", BASE_API + "/event(/)?", request) ||
-                requestMatch("GET", BASE_API + "/doc(/)?.*", request) ||
-                requestMatch("POST", BASE_API + "/user/[^/]*", request)
-                ) {
-            authenticationRequired = false;
-        }
+        boolean authenticationRequired = !routeWhitelist.match(request.requestMethod(), request.pathInfo());
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("Authentication is {}require for request {} {}.", authenticationRequired ? "" : "NOT ", request.requestMethod(), request.pathInfo());
         }
+        TokenCredential tokenCredential = BearerAuthenticator.extractCredential(request.headers(BasicAuthenticator.AUTHORIZATION_HEADER_NAME));
+        SimpleCredential credential = tokenCredential == null ? BasicAuthenticator.extractCredential(request) : null;
         if (authenticationRequired) {
-            BasicAuthenticator basicAuthenticator = new BasicAuthenticator();
-            basicAuthenticator.handle(request, response);
-            if (basicAuthenticator.isProvideCredentials()) {
-                User user = userAuthenticator.authenticate(new SimpleCredential(basicAuthenticator.getUsername(), basicAuthenticator.getPassword()));
+            if (tokenCredential != null || credential != null) {
+                User user = authenticate(request, response, tokenCredential, credential);
                 if (user == null) {
                     LOGGER.warn("ClientIp '{}' try to access to path '{}' with invalid credentials.", request.ip(), request.pathInfo());
                     authorizationRequiered(request, response);
@@ -120,7 +150,32 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
             } else {
                 authorizationRequiered(request, response);
             }
+        } else if (tokenCredential != null) {
+            //  Verifying a token don't cost any lookup, let anonymous routes know who is the requester.
+            User user = tokenUserAuthenticator.authenticate(tokenCredential);
+            if (user != null) {
+                request.attribute(REQUESTER_ATTRIBUTE, user);
+            }
+        } else if (credential != null) {
+            //  Anonymous routes may use the requester, its credential are checked and throttled as any other.
+            authenticate(request, response, null, credential);
+        }
+    }
+
+    private User authenticate(Request request, Response response, TokenCredential tokenCredential, SimpleCredential credential) {
+        String username = credential != null ? credential.getUsername() : null;
+        if (authenticationThrottler.isThrottled(request.ip(), username)) {
+            LOGGER.warn("ClientIp '{}' is throttled after too many failed authentications.", request.ip());
+            response.header("Retry-After", Long.toString(authenticationThrottler.retryAfterInSeconds()));
+            halt(429, "Too many failed authentications.");
+        }
+        User user = tokenCredential != null ? tokenUserAuthenticator.authenticate(tokenCredential) : userAuthenticator.authenticate(credential);
+        if (user == null) {
+            authenticationThrottler.recordFailure(request.ip(), username);
+        } else {
+            request.attribute(REQUESTER_ATTRIBUTE, user);
         }
+        return user;
     }
 
     private static void authorizationRequiered(Request request, Response response) {
@@ -133,12 +188,6 @@ public class HttpEndpoint extends AbstractSparkEndpoint implements SparkApplicat
         halt(401);
     }
 
-    private static boolean requestMatch(String methodName, String regexpPath, Request request) {
-        boolean matchMethod = methodName.equals(request.requestMethod());
-        boolean pathMatch = request.pathInfo().matches(regexpPath);
-        return matchMethod && pathMatch;
-    }
-
     @Override
     public void init() {
         configure();
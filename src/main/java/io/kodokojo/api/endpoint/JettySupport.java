@@ -34,18 +34,25 @@ public class JettySupport implements ApplicationLifeCycleListener {
     private final HttpEndpoint httpEndpoint;
 
     private final SseServlet sseServlet;
-    
+
+    private final long sseHeartbeatPeriod;
+
     private final Object monitor = new Object();
 
     private Server server;
 
+    /**
+     * @param sseHeartbeatPeriod Time in milliseconds between two heartbeats sent by Jetty on each SSE session, rounded
+     *                           up to the second.
+     */
     @Inject
-    public JettySupport(int port, HttpEndpoint httpEndpoint, SseServlet sseServlet) {
+    public JettySupport(int port, HttpEndpoint httpEndpoint, SseServlet sseServlet, long sseHeartbeatPeriod) {
         requireNonNull(httpEndpoint, "httpEndpoint must be defined.");
         requireNonNull(sseServlet, "sseServlet must be defined.");
         this.port = port;
         this.httpEndpoint = httpEndpoint;
         this.sseServlet = sseServlet;
+        this.sseHeartbeatPeriod = sseHeartbeatPeriod;
     }
 
     @Override
@@ -88,6 +95,9 @@ public class JettySupport implements ApplicationLifeCycleListener {
         ServletContextHandler context = new ServletContextHandler();
         ServletHolder sseServletHolder = new ServletHolder(sseServlet);
         sseServletHolder.setAsyncSupported(true);
+        //  Jetty expects seconds, and writes heartbeats on its own scheduler, closing the session when one fail.
+        long heartbeatSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(sseHeartbeatPeriod + 999));
+        sseServletHolder.setInitParameter("heartBeatPeriod", Long.toString(heartbeatSeconds));
         context.addServlet(sseServletHolder, HttpEndpoint.BASE_API + "/event");
 
 
@@ -98,6 +108,14 @@ public class JettySupport implements ApplicationLifeCycleListener {
             }
         });
 
+        sparkFilter.setAsyncSupported(true);
+        FilterHolder requestScopeFilter = new FilterHolder(new RequestScopeFilter());
+        requestScopeFilter.setAsyncSupported(true);
+        FilterHolder deferredResponseFilter = new FilterHolder(new DeferredResponseFilter());
+        deferredResponseFilter.setAsyncSupported(true);
+
+        context.addFilter(requestScopeFilter, "/*", EnumSet.of(DispatcherType.REQUEST));
+        context.addFilter(deferredResponseFilter, "/*", EnumSet.of(DispatcherType.REQUEST));
         //context.addFilter(sparkFilter, "/api/v1", EnumSet.allOf(DispatcherType.class));
         context.addFilter(sparkFilter, "/*", EnumSet.allOf(DispatcherType.class));
 
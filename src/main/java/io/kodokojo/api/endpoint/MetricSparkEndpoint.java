@@ -0,0 +1,56 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.User;
+
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+import static spark.Spark.get;
+import static spark.Spark.halt;
+
+public class MetricSparkEndpoint extends AbstractSparkEndpoint {
+
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public MetricSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, MetricRegistry metricRegistry) {
+        super(userAuthenticator, eventBus, eventBuilderFactory);
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void configure() {
+
+        get(BASE_API + "/metric", JSON_CONTENT_TYPE, (request, response) -> {
+            User requester = getRequester(request);
+            if (requester == null || !requester.isRoot()) {
+                halt(403, "You aren't allowed to lookup metrics.");
+                return "";
+            }
+            return metricRegistry.snapshot();
+        }, jsonResponseTransformer);
+
+    }
+}
@@ -18,6 +18,11 @@
 package io.kodokojo.api.endpoint;
 
 import com.google.gson.*;
+import io.kodokojo.api.config.EventPublicationConfig;
+import io.kodokojo.api.event.payload.OrganisationChangeUsersRequest;
+import io.kodokojo.api.service.ProjectLookup;
+import io.kodokojo.api.service.ProjectMembershipIndex;
+import io.kodokojo.api.service.UserOrganisationRightsView;
 import io.kodokojo.api.service.authentification.SimpleCredential;
 import io.kodokojo.commons.dto.*;
 import io.kodokojo.commons.event.Event;
@@ -32,7 +37,6 @@ import io.kodokojo.commons.model.*;
 import io.kodokojo.commons.service.actor.message.BrickStateEvent;
 import io.kodokojo.commons.service.repository.OrganisationFetcher;
 import io.kodokojo.commons.service.repository.ProjectFetcher;
-import org.apache.commons.collections4.IteratorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
@@ -43,7 +47,6 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -60,13 +63,33 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
 
     private final OrganisationFetcher organisationFetcher;
 
+    private final UserOrganisationRightsView userOrganisationRightsView;
+
+    private final ProjectMembershipIndex projectMembershipIndex;
+
+    private final ProjectLookup projectLookup;
+
+    private final AsyncEventRequester asyncEventRequester;
+
+    private final boolean organisationChangeAdminBatched;
+
     @Inject
-    public ProjectSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher) {
+    public ProjectSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator, EventBus eventBus, EventBuilderFactory eventBuilderFactory, ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher, UserOrganisationRightsView userOrganisationRightsView, ProjectMembershipIndex projectMembershipIndex, ProjectLookup projectLookup, AsyncEventRequester asyncEventRequester, EventPublicationConfig eventPublicationConfig) {
         super(userAuthenticator, eventBus, eventBuilderFactory);
         requireNonNull(organisationFetcher, "organisationFetcher must be defined.");
         requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        requireNonNull(userOrganisationRightsView, "userOrganisationRightsView must be defined.");
+        requireNonNull(projectMembershipIndex, "projectMembershipIndex must be defined.");
+        requireNonNull(projectLookup, "projectLookup must be defined.");
+        requireNonNull(asyncEventRequester, "asyncEventRequester must be defined.");
+        requireNonNull(eventPublicationConfig, "eventPublicationConfig must be defined.");
         this.organisationFetcher = organisationFetcher;
         this.projectFetcher = projectFetcher;
+        this.userOrganisationRightsView = userOrganisationRightsView;
+        this.projectMembershipIndex = projectMembershipIndex;
+        this.projectLookup = projectLookup;
+        this.asyncEventRequester = asyncEventRequester;
+        this.organisationChangeAdminBatched = Boolean.TRUE.equals(eventPublicationConfig.organisationChangeAdminBatched());
     }
 
     @Override
@@ -119,20 +142,21 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         }
         User requester = getRequester(request);
 
-        Project project = projectFetcher.getProjectByIdentifier(identifier);
+        ProjectLookup.ProjectHierarchy projectHierarchy = projectLookup.lookup(identifier);
+        Project project = projectHierarchy.getProject();
         if (project == null) {
             halt(404, "Unable to found project with id '" + identifier + "'.");
             return "";
         }
 
-        ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(project.getProjectConfigurationIdentifier());
+        ProjectConfiguration projectConfiguration = projectHierarchy.getProjectConfiguration();
         if (projectConfiguration == null) {
             LOGGER.error("Unable to found projectConfiguration with id '{}' from project '{}' with id '{}'.", project.getProjectConfigurationIdentifier(), project.getName(), identifier);
             halt(500, "Unable to found a projectConfiguration for project with id " + identifier);
             return "";
         }
 
-        Organisation organisation = organisationFetcher.getOrganisationById(projectConfiguration.getEntityIdentifier());
+        Organisation organisation = projectHierarchy.getOrganisation();
         if (organisation == null) {
             LOGGER.error("Unable to found organisation with id '{}' from project '{}' with id '{}'.", projectConfiguration.getEntityIdentifier(), project.getName(), identifier);
             halt(500, "Unable to found a organisation for project with id " + identifier);
@@ -191,14 +215,19 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
                 String userToAddId = el.getAsJsonPrimitive().getAsString();
                 userIdsToAdd.add(userToAddId);
             }
-            EventBuilder eventBuilder = eventBuilderFactory.create();
-            eventBuilder.setEventType(Event.ORGANISATION_CHANGE_ADMIN_REQUEST);
-            eventBuilder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier());
-            userIdsToAdd.forEach(userId -> {
-                OrganisationChangeUserRequest payload = new OrganisationChangeUserRequest(requester, typeChange, organisation.getIdentifier(), userId);
-                eventBuilder.setPayload(payload);
-                eventBus.send(eventBuilder.build());
-            });
+            if (userIdsToAdd.isEmpty()) {
+                return "";
+            }
+            if (organisationChangeAdminBatched) {
+                OrganisationChangeUsersRequest payload = new OrganisationChangeUsersRequest(requester, typeChange, organisation.getIdentifier(), userIdsToAdd);
+                eventBus.send(createOrganisationChangeAdminEvent(requester, payload));
+            } else {
+                //  Compatibility mode for consumers which only understand the single user form.
+                userIdsToAdd.forEach(userId -> {
+                    OrganisationChangeUserRequest payload = new OrganisationChangeUserRequest(requester, typeChange, organisation.getIdentifier(), userId);
+                    eventBus.send(createOrganisationChangeAdminEvent(requester, payload));
+                });
+            }
         } else {
             halt(403);
             return "You aren't allowed to " + typeChange + " admin to this organisation.";
@@ -206,7 +235,15 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         return "";
     }
 
-    private Object createOrganisation(Request request, Response response) {
+    private Event createOrganisationChangeAdminEvent(User requester, Object payload) {
+        return eventBuilderFactory.create()
+                .setEventType(Event.ORGANISATION_CHANGE_ADMIN_REQUEST)
+                .addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier())
+                .setPayload(payload)
+                .build();
+    }
+
+    private Object createOrganisation(Request request, Response response) throws Exception {
         User requester = getRequester(request);
         if (!requester.isRoot()) {
             halt(403, "You aren't allow to create organisation.");
@@ -219,26 +256,22 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         if (nameOpt.isPresent()) {
             String name = nameOpt.get();
             EventBuilder eventBuilder = eventBuilderFactory.create();
-            eventBuilder.setEventType(Event.ORGANISATION_CREATE_REQUEST);
             eventBuilder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier());
             eventBuilder.setPayload(name);
-            Event reply = null;
-            try {
-                reply = eventBus.request(eventBuilder.build(), 30, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                LOGGER.error("Unable to create organisation {}, timeout exceed.", name, e);
-            }
-            if (reply == null) {
-                halt(500, "request excess timeout.");
-                return "";
-            }
-            OrganisationCreationReply organisationCreationReply = reply.getPayload(OrganisationCreationReply.class);
-            if (organisationCreationReply.isAlreadyExist()) {
-                halt(409, "Organisation with name " + name + " already exist.");
-                return "";
-            }
-            response.status(201);
-            return new OrganisationLightDto(organisationCreationReply.getIdentifier(), name);
+            return asyncEventRequester.request(request, response, Event.ORGANISATION_CREATE_REQUEST, eventBuilder, jsonResponseTransformer, reply -> {
+                if (reply == null) {
+                    LOGGER.error("Unable to create organisation {}, timeout exceed.", name);
+                    halt(500, "request excess timeout.");
+                    return "";
+                }
+                OrganisationCreationReply organisationCreationReply = reply.getPayload(OrganisationCreationReply.class);
+                if (organisationCreationReply.isAlreadyExist()) {
+                    halt(409, "Organisation with name " + name + " already exist.");
+                    return "";
+                }
+                response.status(201);
+                return new OrganisationLightDto(organisationCreationReply.getIdentifier(), name);
+            });
         } else {
             halt(400, "name is required.");
         }
@@ -248,7 +281,7 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
     private Object getOrganisationForCurrentUser(Request request) {
         String identifier = request.params(":id");
         User requester = getRequester(request);
-        List<UserOrganisationRightDto> organisationRightDtos = UserOrganisationRightDto.computeUserOrganisationRights(requester, organisationFetcher, projectFetcher);
+        List<UserOrganisationRightDto> organisationRightDtos = userOrganisationRightsView.getOrganisationRights(requester);
         Optional<UserOrganisationRightDto> userOrganisationRightDto = organisationRightDtos.stream()
                 .filter(organisation -> organisation.getIdentifier().equals(identifier))
                 .findFirst();
@@ -261,13 +294,13 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
 
     private Object getListOfLightOrganisationFromCurrentUser(Request request) {
         User requester = getRequester(request);
-        List<UserOrganisationRightDto> organisationRightDtos = UserOrganisationRightDto.computeUserOrganisationRights(requester, organisationFetcher, projectFetcher);
+        List<UserOrganisationRightDto> organisationRightDtos = userOrganisationRightsView.getOrganisationRights(requester);
         return organisationRightDtos.stream()
                 .map(organisation -> new OrganisationLightDto(organisation.getIdentifier(), organisation.getName()))
                 .collect(Collectors.toList());
     }
 
-    private Object createProjectConfiguration(Request request, Response response) throws InterruptedException {
+    private Object createProjectConfiguration(Request request, Response response) throws Exception {
         User requester = getRequester(request);
 
         String body = request.body();
@@ -282,20 +315,20 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         }
 
         EventBuilder eventBuilder = eventBuilderFactory.create();
-        eventBuilder.setEventType(Event.PROJECTCONFIG_CREATION_REQUEST);
         eventBuilder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier());
         eventBuilder.setPayload(dto);
 
-        Event reply = eventBus.request(eventBuilder.build(), 30, TimeUnit.SECONDS);
-        if (reply == null) {
-            halt(500, "request excess timeout.");
-            return "";
-        }
-        String projectConfigIdentifier = reply.getPayload();
+        return asyncEventRequester.request(request, response, Event.PROJECTCONFIG_CREATION_REQUEST, eventBuilder, null, reply -> {
+            if (reply == null) {
+                halt(500, "request excess timeout.");
+                return "";
+            }
+            String projectConfigIdentifier = reply.getPayload();
 
-        response.status(201);
-        response.header("Location", "/projectconfig/" + projectConfigIdentifier);
-        return projectConfigIdentifier;
+            response.status(201);
+            response.header("Location", "/projectconfig/" + projectConfigIdentifier);
+            return projectConfigIdentifier;
+        });
     }
 
     private Object getProjectConfigurationById(Request request) {
@@ -391,7 +424,7 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         return "";
     }
 
-    private Object startProject(Request request, Response response) throws InterruptedException {
+    private Object startProject(Request request, Response response) throws Exception {
         User requester = getRequester(request);
         String projectConfigurationId = request.params(":id");
         ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(projectConfigurationId);
@@ -404,21 +437,20 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
             if (isBlank(projectId)) {
 
                 EventBuilder eventBuilder = eventBuilderFactory.create()
-                        .setEventType(Event.PROJECTCONFIG_START_REQUEST)
                         .addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier())
                         .setJsonPayload(projectConfigurationId);
 
-                Event reply = eventBus.request(eventBuilder.build(), 1, TimeUnit.MINUTES);
-
-                if (reply != null) {
-
-                    response.status(201);
-                    String projectIdStarted = reply.getPayload();
-                    return projectIdStarted;
-                } else {
-                    halt(408, "Unable to know if project " + projectConfigurationId + " had been started or not.");
-                    return "";
-                }
+                return asyncEventRequester.request(request, response, Event.PROJECTCONFIG_START_REQUEST, eventBuilder, null, reply -> {
+                    if (reply != null) {
+
+                        response.status(201);
+                        String projectIdStarted = reply.getPayload();
+                        return projectIdStarted;
+                    } else {
+                        halt(408, "Unable to know if project " + projectConfigurationId + " had been started or not.");
+                        return "";
+                    }
+                });
             } else {
                 halt(409, "Project already exist.");
             }
@@ -431,13 +463,18 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
     private Object getProjectById(Request request) {
         User requester = getRequester(request);
         String projectId = request.params(":id");
-        Project project = projectFetcher.getProjectByIdentifier(projectId);
+        ProjectLookup.ProjectHierarchy projectHierarchy = projectLookup.lookup(projectId);
+        Project project = projectHierarchy.getProject();
         if (project == null) {
             halt(404);
             return "";
         }
-        ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(project.getProjectConfigurationIdentifier());
-        Organisation organisation = organisationFetcher.getOrganisationById(projectConfiguration.getEntityIdentifier());
+        ProjectConfiguration projectConfiguration = projectHierarchy.getProjectConfiguration();
+        Organisation organisation = projectHierarchy.getOrganisation();
+        if (projectConfiguration == null || organisation == null) {
+            halt(500, "Unable to found a projectConfiguration or an organisation for project with id " + projectId);
+            return "";
+        }
         if (organisation.userIsAdmin(requester.getIdentifier()) || userIsUser(requester, projectConfiguration)) {
             ProjectDto projectDto = new ProjectDto(project);
             return projectDto;
@@ -448,15 +485,12 @@ public class ProjectSparkEndpoint extends AbstractSparkEndpoint {
         return "";
     }
 
-    private static boolean userIsUser(User user, ProjectConfiguration projectConfiguration) {
-        List<User> users = IteratorUtils.toList(projectConfiguration.getUsers());
-        boolean res = users.stream().anyMatch(u -> u.getIdentifier().equals(user.getIdentifier()));
-        return res || userIsAdmin(user, projectConfiguration);
+    private boolean userIsUser(User user, ProjectConfiguration projectConfiguration) {
+        return projectMembershipIndex.isMember(projectConfiguration, user.getIdentifier());
     }
 
-    private static boolean userIsAdmin(User user, ProjectConfiguration projectConfiguration) {
-        List<User> users = IteratorUtils.toList(projectConfiguration.getTeamLeaders());
-        return users.stream().anyMatch(u -> u.getIdentifier().equals(user.getIdentifier()));
+    private boolean userIsAdmin(User user, ProjectConfiguration projectConfiguration) {
+        return projectMembershipIndex.isTeamLeader(projectConfiguration, user.getIdentifier());
     }
 
 }
@@ -0,0 +1,64 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.cache.RequestScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Open a {@link RequestScope} for the time an HTTP request is handled.
+ */
+public class RequestScopeFilter implements Filter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestScopeFilter.class);
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Nothing to do.
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        RequestScope scope = RequestScope.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            scope.close();
+            if (LOGGER.isDebugEnabled() && request instanceof HttpServletRequest) {
+                HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+                LOGGER.debug("Request {} {} fetched {} entities, {} lookups served from request scope.", httpServletRequest.getMethod(), httpServletRequest.getRequestURI(), scope.getFetchCount(), scope.getMemoizedCount());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do.
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Match a request against a set of {@link AnonymousRoute}. Path regexps of a same method are compiled once in a single {@link Pattern}.
+ */
+public class RouteWhitelist {
+
+    private final Map<String, Pattern> patternByMethodName;
+
+    public RouteWhitelist(Collection<AnonymousRoute> anonymousRoutes) {
+        requireNonNull(anonymousRoutes, "anonymousRoutes must be defined.");
+        Map<String, String> regexpByMethodName = anonymousRoutes.stream()
+                .collect(Collectors.groupingBy(AnonymousRoute::getMethodName,
+                        Collectors.mapping(route -> "(?:" + route.getPathRegexp() + ")", Collectors.joining("|"))));
+        Map<String, Pattern> patterns = new HashMap<>();
+        regexpByMethodName.forEach((methodName, regexp) -> patterns.put(methodName, Pattern.compile(regexp)));
+        this.patternByMethodName = patterns;
+    }
+
+    public boolean match(String methodName, String path) {
+        if (methodName == null || path == null) {
+            return false;
+        }
+        Pattern pattern = patternByMethodName.get(methodName);
+        return pattern != null && pattern.matcher(path).matches();
+    }
+
+}
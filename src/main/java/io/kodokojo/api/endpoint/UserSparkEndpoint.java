@@ -22,7 +22,10 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.kodokojo.api.service.ReCaptchaService;
+import io.kodokojo.api.service.UserIdentifierPool;
+import io.kodokojo.api.service.UserOrganisationRightsView;
 import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenUserAuthenticator;
 import io.kodokojo.commons.dto.UserCreationDto;
 import io.kodokojo.commons.dto.UserDto;
 import io.kodokojo.commons.dto.UserOrganisationRightDto;
@@ -34,8 +37,6 @@ import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.event.payload.UserCreationReply;
 import io.kodokojo.commons.event.payload.UserCreationRequest;
 import io.kodokojo.commons.model.User;
-import io.kodokojo.commons.service.repository.OrganisationFetcher;
-import io.kodokojo.commons.service.repository.ProjectFetcher;
 import io.kodokojo.commons.service.repository.UserFetcher;
 import io.kodokojo.commons.service.repository.UserSearcher;
 import io.kodokojo.commons.service.repository.search.Criteria;
@@ -48,7 +49,10 @@ import spark.Response;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -57,47 +61,57 @@ import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static spark.Spark.*;
 
-public class UserSparkEndpoint extends AbstractSparkEndpoint {
+public class UserSparkEndpoint extends AbstractSparkEndpoint implements AnonymousRouteProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserSparkEndpoint.class);
 
     private final UserFetcher userFetcher;
 
-    private final OrganisationFetcher organisationFetcher;
-
-    private final ProjectFetcher projectFetcher;
+    private final UserOrganisationRightsView userOrganisationRightsView;
 
     private final ReCaptchaService reCaptchaService;
 
     private final UserSearcher userSearcher;
 
+    private final TokenUserAuthenticator tokenUserAuthenticator;
+
+    private final AsyncEventRequester asyncEventRequester;
+
+    private final UserIdentifierPool userIdentifierPool;
+
     @Inject
     public UserSparkEndpoint(UserAuthenticator<SimpleCredential> userAuthenticator,
                              EventBus eventBus,
                              EventBuilderFactory eventBuilderFactory,
                              UserFetcher userFetcher,
-                             OrganisationFetcher organisationFetcher,
-                             ProjectFetcher projectFetcher,
+                             UserOrganisationRightsView userOrganisationRightsView,
                              UserSearcher userSearcher,
-                             ReCaptchaService reCaptchaService
+                             ReCaptchaService reCaptchaService,
+                             TokenUserAuthenticator tokenUserAuthenticator,
+                             AsyncEventRequester asyncEventRequester,
+                             UserIdentifierPool userIdentifierPool
     ) {
         super(userAuthenticator, eventBus, eventBuilderFactory);
         requireNonNull(userFetcher, "userFetcher must be defined.");
-        requireNonNull(organisationFetcher, "entityFetcher must be defined.");
-        requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        requireNonNull(userOrganisationRightsView, "userOrganisationRightsView must be defined.");
         requireNonNull(reCaptchaService, "reCaptchaService must be defined.");
         requireNonNull(userSearcher, "userSearcher must be defined.");
-        this.organisationFetcher = organisationFetcher;
+        requireNonNull(tokenUserAuthenticator, "tokenUserAuthenticator must be defined.");
+        requireNonNull(asyncEventRequester, "asyncEventRequester must be defined.");
+        requireNonNull(userIdentifierPool, "userIdentifierPool must be defined.");
         this.userFetcher = userFetcher;
-        this.projectFetcher = projectFetcher;
+        this.userOrganisationRightsView = userOrganisationRightsView;
         this.reCaptchaService = reCaptchaService;
         this.userSearcher = userSearcher;
+        this.tokenUserAuthenticator = tokenUserAuthenticator;
+        this.asyncEventRequester = asyncEventRequester;
+        this.userIdentifierPool = userIdentifierPool;
     }
 
     @Override
     public void configure() {
         patch(BASE_API + "/user/:id", JSON_CONTENT_TYPE,
-                (request, response) -> updateUser(request),
+                this::updateUser,
                 jsonResponseTransformer
         );
 
@@ -108,14 +122,22 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
 
         post(BASE_API + "/user",
                 JSON_CONTENT_TYPE,
-                (request, response) -> requestNewIdentifier()
+                this::requestNewIdentifier
         );
 
         get(BASE_API + "/user", JSON_CONTENT_TYPE, (request, response) -> {
             User requester = getRequester(request);
-            return getUserDto(requester);
+            //  Requester may come from a token which not contain all user attributes.
+            User user = userFetcher.getUserByIdentifier(requester.getIdentifier());
+            if (user == null) {
+                halt(404);
+                return "";
+            }
+            return getUserDto(user);
         }, jsonResponseTransformer);
 
+        post(BASE_API + "/token", JSON_CONTENT_TYPE, (request, response) -> createToken(request, response), jsonResponseTransformer);
+
         get(BASE_API + "/user/search", JSON_CONTENT_TYPE, (request, response) -> searchUser(request), jsonResponseTransformer);
 
         get(BASE_API + "/user/:id", JSON_CONTENT_TYPE,
@@ -124,6 +146,16 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
         );
     }
 
+    @Override
+    public Set<AnonymousRoute> anonymousRoutes() {
+        Set<AnonymousRoute> res = new HashSet<>();
+        //  Request a new user identifier.
+        res.add(new AnonymousRoute("POST", BASE_API + "/user"));
+        //  Create a user, a captcha is required when no requester is authenticated.
+        res.add(new AnonymousRoute("POST", BASE_API + "/user/[^/]*"));
+        return res;
+    }
+
     private Object searchUser(Request request) {
         User requester = getRequester(request);
         String criteria = request.queryParams("q");
@@ -153,7 +185,7 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
         if (user != null) {
             if (user.getOrganisationIds().stream()
                     .anyMatch(userOrgaId -> requester.getOrganisationIds().contains(userOrgaId))) {
-                if (!user.equals(requester)) {
+                if (!user.getIdentifier().equals(requester.getIdentifier())) {
                     user = new User(user.getIdentifier(), user.getOrganisationIds(), user.getName(), user.getUsername(), user.getEmail(), "", user.getSshPublicKey(), user.isRoot());
                 }
                 return getUserDto(user);
@@ -165,24 +197,43 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
         return "";
     }
 
-    private Object requestNewIdentifier() throws InterruptedException {
+    private Object createToken(Request request, Response response) {
+        if (BearerAuthenticator.isBearer(request.headers(BasicAuthenticator.AUTHORIZATION_HEADER_NAME))) {
+            halt(403, "A token must be requested with Basic credentials.");
+            return "";
+        }
+        User requester = getRequester(request);
+        Map<String, Object> res = new HashMap<>();
+        res.put("token", tokenUserAuthenticator.createToken(requester));
+        res.put("token_type", "Bearer");
+        res.put("expires_in", tokenUserAuthenticator.getTtlInSeconds());
+        response.status(201);
+        response.header("Cache-Control", "no-store");
+        return res;
+    }
+
+    private Object requestNewIdentifier(Request request, Response response) throws Exception {
         LOGGER.debug("Require a new user Identifier.");
+        String identifier = userIdentifierPool.poll();
+        if (identifier != null) {
+            return identifier;
+        }
         LOGGER.info("Requiere new id via eventBus {} [{}]", eventBus, this);
         EventBuilder eventBuilder = eventBuilderFactory.create()
-                .setEventType(Event.USER_IDENTIFIER_CREATION_REQUEST)
                 .setJsonPayload("");
-        Event reply = eventBus.request(eventBuilder.build(), 30, TimeUnit.SECONDS);
-        if (reply != null && StringUtils.isNotBlank(reply.getPayload())) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("get result :{}", reply.getPayload().substring(1, reply.getPayload().length() - 1));
+        return asyncEventRequester.request(request, response, Event.USER_IDENTIFIER_CREATION_REQUEST, eventBuilder, null, reply -> {
+            if (reply != null && StringUtils.isNotBlank(reply.getPayload())) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("get result :{}", reply.getPayload().substring(1, reply.getPayload().length() - 1));
+                }
+                return reply.getPayload();
             }
-            return reply.getPayload();
-        }
-        halt(500, "An unexpected error occur while trying to generate a new user Id.");
-        return "";
+            halt(500, "An unexpected error occur while trying to generate a new user Id.");
+            return "";
+        });
     }
 
-    private Object createUser(Request request, Response response) throws InterruptedException {
+    private Object createUser(Request request, Response response) throws Exception {
         String identifier = request.params(":id");
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Try to create user with id {}", identifier);
@@ -216,41 +267,45 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
         }
 
         EventBuilder eventBuilder = eventBuilderFactory.create();
-        eventBuilder.setEventType(Event.USER_CREATION_REQUEST);
         if (requester != null) {
             eventBuilder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier());
         }
         eventBuilder.setPayload(new UserCreationRequest(identifier, email, username, organisationId, isRoot));
 
-        Event reply = eventBus.request(eventBuilder.build(), 10, TimeUnit.SECONDS);
-
-        if (reply == null) {
-            halt(500, "Unable to create user " + username + " in less than 10 seconds.");
-        } else {
-            UserCreationReply userCreationReply = reply.getPayload(UserCreationReply.class);
-            if (userCreationReply.isUserInWaitingList()) {
-                LOGGER.info("Set user '{}' in waiting list to creation.", username);
-                response.status(202);
-                return "";
-            } else if (!userCreationReply.isUsernameEligible()) {
-                halt(428, "Identifier or username are not valid.");
-                return "";
-            } else if (StringUtils.isNotBlank(userCreationReply.getUserId()) &&
-                    userCreationReply.getPrivateKey() != null) {
-                User user = userFetcher.getUserByIdentifier(identifier);
-                response.status(201);
-                response.header("Location", "/user/" + user.getIdentifier());
-                UserCreationDto res = new UserCreationDto(user, userCreationReply.getPrivateKey());
-                res.setOrganisations(UserOrganisationRightDto.computeUserOrganisationRights(user, organisationFetcher, projectFetcher));
-                return res;
+        return asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder, jsonResponseTransformer, reply -> {
+            if (reply == null) {
+                halt(500, "Unable to create user " + username + " in less than " + TimeUnit.MILLISECONDS.toSeconds(asyncEventRequester.timeoutOf(Event.USER_CREATION_REQUEST)) + " seconds.");
+            } else {
+                UserCreationReply userCreationReply = reply.getPayload(UserCreationReply.class);
+                if (userCreationReply.isUserInWaitingList()) {
+                    LOGGER.info("Set user '{}' in waiting list to creation.", username);
+                    response.status(202);
+                    return "";
+                } else if (!userCreationReply.isUsernameEligible()) {
+                    halt(428, "Identifier or username are not valid.");
+                    return "";
+                } else if (StringUtils.isNotBlank(userCreationReply.getUserId()) &&
+                        userCreationReply.getPrivateKey() != null) {
+                    User user = userFetcher.getUserByIdentifier(identifier);
+                    if (user == null) {
+                        LOGGER.error("User '{}' is created with identifier {} but can't be fetched.", username, identifier);
+                        halt(500, "User " + username + " is created but can't be read yet.");
+                        return "";
+                    }
+                    response.status(201);
+                    response.header("Location", "/user/" + user.getIdentifier());
+                    UserCreationDto res = new UserCreationDto(user, userCreationReply.getPrivateKey());
+                    res.setOrganisations(userOrganisationRightsView.getOrganisationRights(user));
+                    return res;
+                }
             }
-        }
 
-        halt(500, "An unexpected behaviour happened while trying to create user " + username + ".");
-        return "";
+            halt(500, "An unexpected behaviour happened while trying to create user " + username + ".");
+            return "";
+        });
     }
 
-    private Object updateUser(Request request) throws InterruptedException {
+    private Object updateUser(Request request, Response response) throws Exception {
         String identifier = request.params(":id");
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Try to update user with id {}", identifier);
@@ -270,26 +325,28 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
 
             EventBuilder eventBuilder = eventBuilderFactory.create();
 
-            eventBuilder.setEventType(Event.USER_UPDATE_REQUEST);
+            eventBuilder.addCustomHeader(Event.REQUESTER_ID_CUSTOM_HEADER, requester.getIdentifier());
             eventBuilder.setJsonPayload(request.body());
 
-            Event reply = eventBus.request(eventBuilder.build(), 5, TimeUnit.SECONDS);
-            if (reply == null) {
-                halt(500, "Unable to update User");
-            } else {
-                /*
-                JsonParser parser = new JsonParser();
-                String replyPayload = reply.getPayload();
-                JsonObject replyRoot = (JsonObject) parser.parse(replyPayload);
-                */
-                Boolean success = reply.getPayload(Boolean.class);
-                if (success) {
-                    halt(200);
+            return asyncEventRequester.request(request, response, Event.USER_UPDATE_REQUEST, eventBuilder, jsonResponseTransformer, reply -> {
+                if (reply == null) {
+                    halt(500, "Unable to update User");
                 } else {
-                    halt(500, "Unable to update user " + user.getUsername() + ".");
-                }
+                    /*
+                    JsonParser parser = new JsonParser();
+                    String replyPayload = reply.getPayload();
+                    JsonObject replyRoot = (JsonObject) parser.parse(replyPayload);
+                    */
+                    Boolean success = reply.getPayload(Boolean.class);
+                    if (success) {
+                        halt(200);
+                    } else {
+                        halt(500, "Unable to update user " + user.getUsername() + ".");
+                    }
 
-            }
+                }
+                return "";
+            });
 
         } else {
             halt(403, "Your aren't allow to update this user.");
@@ -323,7 +380,7 @@ public class UserSparkEndpoint extends AbstractSparkEndpoint {
     private UserDto getUserDto(User user) {
         UserDto res = new UserDto(user);
 
-        List<UserOrganisationRightDto> userOrganisationRightDtos = UserOrganisationRightDto.computeUserOrganisationRights(user, organisationFetcher, projectFetcher);
+        List<UserOrganisationRightDto> userOrganisationRightDtos = userOrganisationRightsView.getOrganisationRights(user);
 
         res.setOrganisations(userOrganisationRightDtos);
 
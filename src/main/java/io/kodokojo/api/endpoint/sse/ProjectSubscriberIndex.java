@@ -0,0 +1,199 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Index the identifiers of connected users which are member of each project configuration, so an event may be
+ * fanned out to the SSE sessions of a project without fetching the project configuration.
+ * <p>
+ * A project configuration is loaded once with its whole membership, then kept current from membership changes and
+ * connections of its members. Until loaded, a project configuration is unknown and {@link #getSubscribers(String)}
+ * return <code>null</code>.
+ * </p>
+ */
+public class ProjectSubscriberIndex {
+
+    private final ConcurrentMap<String, Set<String>> subscribersByProject = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<String>> projectsBySubscriber = new ConcurrentHashMap<>();
+
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Declare a user as connected, so it is indexed in the project configurations loaded from now on.
+     * @param userIdentifier Identifier of the connected user.
+     */
+    public void connect(String userIdentifier) {
+        if (isBlank(userIdentifier)) {
+            throw new IllegalArgumentException("userIdentifier must be defined.");
+        }
+        projectsBySubscriber.computeIfAbsent(userIdentifier, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Remove a user which don't have any SSE session anymore from all project configurations.
+     * @param userIdentifier Identifier of the disconnected user.
+     * @param stillDisconnected Tell whether the user still don't have any SSE session; checked while no connection of
+     *                          the user can be indexed, so a reconnection keeps its subscriptions.
+     */
+    public void disconnect(String userIdentifier, BooleanSupplier stillDisconnected) {
+        requireNonNull(userIdentifier, "userIdentifier must be defined.");
+        requireNonNull(stillDisconnected, "stillDisconnected must be defined.");
+        Set<String> unlinked = new HashSet<>();
+        projectsBySubscriber.computeIfPresent(userIdentifier, (key, projectConfigurationIds) -> {
+            if (!stillDisconnected.getAsBoolean()) {
+                return projectConfigurationIds;
+            }
+            unlinked.addAll(projectConfigurationIds);
+            return null;
+        });
+        //  Subscribers are linked while their project configuration is locked, so a user linked again by a
+        //  reconnection is kept.
+        unlinked.forEach(projectConfigurationId -> subscribersByProject.computeIfPresent(projectConfigurationId, (key, subscribers) -> {
+            if (!isLinked(userIdentifier, projectConfigurationId)) {
+                subscribers.remove(userIdentifier);
+            }
+            return subscribers;
+        }));
+    }
+
+    /**
+     * Index a project configuration if it isn't indexed yet. An indexed project configuration is only changed by
+     * membership changes, as given members may be read from a project configuration older than these changes.
+     * @param projectConfigurationId Identifier of the project configuration.
+     * @param members Identifiers of all users and team leaders of the project configuration.
+     */
+    public void load(String projectConfigurationId, Collection<String> members) {
+        if (isBlank(projectConfigurationId)) {
+            throw new IllegalArgumentException("projectConfigurationId must be defined.");
+        }
+        requireNonNull(members, "members must be defined.");
+        subscribersByProject.computeIfAbsent(projectConfigurationId, key -> subscribersOf(key, members));
+    }
+
+    /**
+     * Subscribe a connected member to a project configuration, indexing the project configuration from given members
+     * if it isn't indexed yet.
+     * @param projectConfigurationId Identifier of the project configuration.
+     * @param members Identifiers of all users and team leaders of the project configuration.
+     * @param userIdentifier Identifier of the connected member.
+     */
+    public void subscribe(String projectConfigurationId, Collection<String> members, String userIdentifier) {
+        if (isBlank(projectConfigurationId)) {
+            throw new IllegalArgumentException("projectConfigurationId must be defined.");
+        }
+        requireNonNull(members, "members must be defined.");
+        requireNonNull(userIdentifier, "userIdentifier must be defined.");
+        subscribersByProject.compute(projectConfigurationId, (key, subscribers) -> {
+            if (subscribers == null) {
+                return subscribersOf(key, members);
+            }
+            if (linkSubscriber(userIdentifier, key)) {
+                subscribers.add(userIdentifier);
+            }
+            return subscribers;
+        });
+    }
+
+    /**
+     * Add members to a loaded project configuration; users which aren't connected are ignored.
+     */
+    public void addMembers(String projectConfigurationId, Collection<String> userIdentifiers) {
+        requireNonNull(projectConfigurationId, "projectConfigurationId must be defined.");
+        requireNonNull(userIdentifiers, "userIdentifiers must be defined.");
+        subscribersByProject.computeIfPresent(projectConfigurationId, (key, subscribers) -> {
+            userIdentifiers.forEach(userIdentifier -> {
+                if (linkSubscriber(userIdentifier, projectConfigurationId)) {
+                    subscribers.add(userIdentifier);
+                }
+            });
+            return subscribers;
+        });
+    }
+
+    public void removeMembers(String projectConfigurationId, Collection<String> userIdentifiers) {
+        requireNonNull(projectConfigurationId, "projectConfigurationId must be defined.");
+        requireNonNull(userIdentifiers, "userIdentifiers must be defined.");
+        userIdentifiers.forEach(userIdentifier -> projectsBySubscriber.computeIfPresent(userIdentifier, (key, projectConfigurationIds) -> {
+            projectConfigurationIds.remove(projectConfigurationId);
+            return projectConfigurationIds;
+        }));
+        subscribersByProject.computeIfPresent(projectConfigurationId, (key, subscribers) -> {
+            subscribers.removeAll(userIdentifiers);
+            return subscribers;
+        });
+    }
+
+    /**
+     * @param projectConfigurationId Identifier of a project configuration.
+     * @return A live view of the connected members of the project configuration, <code>null</code> if the project
+     * configuration isn't loaded.
+     */
+    public Set<String> getSubscribers(String projectConfigurationId) {
+        requireNonNull(projectConfigurationId, "projectConfigurationId must be defined.");
+        Set<String> subscribers = subscribersByProject.get(projectConfigurationId);
+        if (subscribers == null) {
+            missCount.increment();
+            return null;
+        }
+        return Collections.unmodifiableSet(subscribers);
+    }
+
+    public int size() {
+        return subscribersByProject.size();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    private Set<String> subscribersOf(String projectConfigurationId, Collection<String> members) {
+        Set<String> res = ConcurrentHashMap.newKeySet();
+        members.forEach(member -> {
+            if (linkSubscriber(member, projectConfigurationId)) {
+                res.add(member);
+            }
+        });
+        return res;
+    }
+
+    private boolean isLinked(String userIdentifier, String projectConfigurationId) {
+        Set<String> projectConfigurationIds = projectsBySubscriber.get(userIdentifier);
+        return projectConfigurationIds != null && projectConfigurationIds.contains(projectConfigurationId);
+    }
+
+    private boolean linkSubscriber(String userIdentifier, String projectConfigurationId) {
+        return projectsBySubscriber.computeIfPresent(userIdentifier, (key, projectConfigurationIds) -> {
+            projectConfigurationIds.add(projectConfigurationId);
+            return projectConfigurationIds;
+        }) != null;
+    }
+
+}
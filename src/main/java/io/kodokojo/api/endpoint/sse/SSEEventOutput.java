@@ -2,16 +2,48 @@ package io.kodokojo.api.endpoint.sse;
 
 import org.eclipse.jetty.servlets.EventSource;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
 
 public class SSEEventOutput implements EventSource {
 
-    private Emitter emitter;
+    private volatile HttpServletRequest request;
+
+    private volatile OutputStream output;
+
+    private volatile Emitter emitter;
+
+    private volatile Runnable closeListener;
+
+    private volatile boolean active = true;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public SSEEventOutput() {
+        this(null);
+    }
+
+    /**
+     * @param request The request of the SSE connection, which give access to the output stream of the emitter,
+     *                so encoded frames are written as is. May be <code>null</code>. Only kept until the connection is
+     *                opened, as Jetty recycles requests.
+     */
+    public SSEEventOutput(HttpServletRequest request) {
+        this.request = request;
+    }
 
     @Override
     public void onOpen(Emitter emitter) throws IOException {
+        HttpServletRequest current = request;
+        request = null;
+        if (current != null && current.isAsyncStarted()) {
+            this.output = current.getAsyncContext().getResponse().getOutputStream();
+        }
         this.emitter = emitter;
     }
 
@@ -19,24 +51,85 @@ public class SSEEventOutput implements EventSource {
         if (isBlank(data)) {
             throw new IllegalArgumentException("data must be defined.");
         }
-        if (emitter != null) {
+        return write(emitter -> emitter.data(data));
+    }
+
+    /**
+     * Write an encoded frame, without encoding it again when the output stream of the emitter is available.
+     * <p>
+     * The frame is written under the monitor of the Jetty emitter, as Jetty 9.4.2 writes data and heartbeats under
+     * the emitter monitor; <code>SSEEventOutputTest</code> fails if another Jetty version stops doing so.
+     * </p>
+     */
+    public boolean send(SseFrame frame) throws IOException {
+        requireNonNull(frame, "frame must be defined.");
+        OutputStream stream = output;
+        if (stream == null) {
+            return write(emitter -> emitter.data(frame.getData()));
+        }
+        return write(emitter -> {
+            //  Lock the emitter as it does itself, so frames and Jetty heartbeats don't interleave.
+            synchronized (emitter) {
+                frame.writeTo(stream);
+                stream.flush();
+            }
+        });
+    }
+
+    private boolean write(EmitterWrite write) throws IOException {
+        Emitter current = emitter;
+        if (current != null) {
             try {
-                emitter.data(data);
+                write.writeTo(current);
             } catch (IllegalStateException e) {
                 if (SSE_EXCEPTION_MESSAGE.equals(e.getMessage())) {
                     throw new IOException(e);
                 }
                 throw e;
             }
+            active = true;
             return true;
         }
         return false;
     }
 
+    /**
+     * @return <code>true</code> if an event had been written since the previous call, or since creation.
+     */
+    boolean resetActivity() {
+        boolean res = active;
+        active = false;
+        return res;
+    }
+
+    void setCloseListener(Runnable closeListener) {
+        this.closeListener = closeListener;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
     @Override
     public void onClose() {
-        this.emitter.close();
-        this.emitter = null;
+        if (closed.compareAndSet(false, true)) {
+            Emitter current = emitter;
+            emitter = null;
+            output = null;
+            request = null;
+            if (current != null) {
+                current.close();
+            }
+            Runnable listener = closeListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EmitterWrite {
+        void writeTo(Emitter emitter) throws IOException;
     }
 
     private static final String SSE_EXCEPTION_MESSAGE = "AsyncContext completed and/or Request lifecycle recycled";
@@ -0,0 +1,183 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Write events on SSE sessions from a pool of writers, so a slow client don't delay the delivery to other clients
+ * nor the consumption of the event bus.
+ * <p>
+ * Each session hold a bounded queue of pending events, written in order by a single writer at a time. When the
+ * queue of a session is full, the {@link SseOverflowPolicy} decide which event is lost.
+ * </p>
+ */
+public class SseDispatcher implements ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseDispatcher.class);
+
+    //  Number of events a writer send to a session before giving a chance to other sessions.
+    private static final int WRITE_BATCH_SIZE = 16;
+
+    private final SseSessionRegistry sessionRegistry;
+
+    private final ExecutorService writers;
+
+    private final int queueCapacity;
+
+    private final SseOverflowPolicy overflowPolicy;
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder conflatedCount = new LongAdder();
+
+    private final LongAdder disconnectedCount = new LongAdder();
+
+    /**
+     * @param sessionRegistry Registry of sessions, used to compute the queue depth.
+     * @param writers Executor which write events on sessions.
+     * @param queueCapacity Maximum number of pending events per session.
+     * @param overflowPolicy Policy applied when the queue of a session is full.
+     */
+    public SseDispatcher(SseSessionRegistry sessionRegistry, ExecutorService writers, int queueCapacity, SseOverflowPolicy overflowPolicy) {
+        requireNonNull(sessionRegistry, "sessionRegistry must be defined.");
+        requireNonNull(writers, "writers must be defined.");
+        requireNonNull(overflowPolicy, "overflowPolicy must be defined.");
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be greater than 0.");
+        }
+        this.sessionRegistry = sessionRegistry;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Queue an event to be written on a session. Never block.
+     * @param session The session to write on.
+     * @param frame The frame to write, shared by all sessions.
+     * @param conflationKey Events with the same conflation key may be conflated, may be <code>null</code>.
+     */
+    public void dispatch(SseSession session, SseFrame frame, String conflationKey) {
+        requireNonNull(session, "session must be defined.");
+        requireNonNull(frame, "frame must be defined.");
+        SseSessionQueue queue = session.getQueue();
+        switch (queue.offer(frame, conflationKey, queueCapacity, overflowPolicy)) {
+            case DROPPED_OLDEST:
+                droppedCount.increment();
+                break;
+            case CONFLATED:
+                conflatedCount.increment();
+                break;
+            case REJECTED:
+                LOGGER.debug("Session {} of user '{}' don't consume its events fast enough, closing it.", session.getId(), session.getUserIdentifier());
+                disconnectedCount.increment();
+                droppedCount.add(queue.clear() + 1);
+                session.close();
+                return;
+            default:
+                break;
+        }
+        if (queue.startDraining()) {
+            scheduleDrain(session);
+        }
+    }
+
+    private void scheduleDrain(SseSession session) {
+        try {
+            writers.execute(() -> drain(session));
+        } catch (RejectedExecutionException e) {
+            //  Writers are stopped.
+            droppedCount.add(session.getQueue().stopDraining());
+        }
+    }
+
+    private void drain(SseSession session) {
+        SseSessionQueue queue = session.getQueue();
+        for (int written = 0; written < WRITE_BATCH_SIZE; written++) {
+            SseFrame frame = queue.poll();
+            if (frame == null) {
+                return;
+            }
+            try {
+                session.send(frame);
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Following event sent to user '{}' on session {}:\n{}", session.getUserIdentifier(), session.getId(), frame.getData());
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Unable to send following event to user '{}' on session {}: \n{}", session.getUserIdentifier(), session.getId(), frame.getData(), e);
+                droppedCount.add(queue.stopDraining());
+                session.close();
+                return;
+            }
+        }
+        //  Still the writer of this queue, continue later.
+        scheduleDrain(session);
+    }
+
+    /**
+     * @return Number of events pending on all sessions.
+     */
+    public int pendingCount() {
+        AtomicInteger res = new AtomicInteger();
+        sessionRegistry.forEach(session -> res.addAndGet(session.getQueue().size()));
+        return res.get();
+    }
+
+    /**
+     * @return Number of events pending on the session which has the most.
+     */
+    public int maxPendingCount() {
+        AtomicInteger res = new AtomicInteger();
+        sessionRegistry.forEach(session -> res.accumulateAndGet(session.getQueue().size(), Math::max));
+        return res.get();
+    }
+
+    public long droppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long conflatedCount() {
+        return conflatedCount.sum();
+    }
+
+    public long disconnectedCount() {
+        return disconnectedCount.sum();
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void stop() {
+        writers.shutdownNow();
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * An SSE data frame encoded once, shared by all the sessions it is written on.
+ * <p>
+ * The encoded bytes are never exposed, so the frame is immutable and may be written from many threads without copy.
+ * The encoding is the one of {@link org.eclipse.jetty.servlets.EventSource.Emitter#data(String)}.
+ * </p>
+ */
+public final class SseFrame {
+
+    private static final byte[] DATA_FIELD = "data: ".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String data;
+
+    private final byte[] bytes;
+
+    private SseFrame(String data, byte[] bytes) {
+        this.data = data;
+        this.bytes = bytes;
+    }
+
+    public static SseFrame data(String data) {
+        if (isBlank(data)) {
+            throw new IllegalArgumentException("data must be defined.");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length() + 16);
+        try (BufferedReader reader = new BufferedReader(new StringReader(data))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                out.write(DATA_FIELD);
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.write(CRLF);
+            }
+            out.write(CRLF);
+        } catch (IOException e) {
+            //  Reading from a String and writing to memory can't fail.
+            throw new UncheckedIOException(e);
+        }
+        return new SseFrame(data, out.toByteArray());
+    }
+
+    /**
+     * @return The data carried by the frame, not encoded.
+     */
+    public String getData() {
+        return data;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    void writeTo(OutputStream output) throws IOException {
+        output.write(bytes);
+    }
+
+}
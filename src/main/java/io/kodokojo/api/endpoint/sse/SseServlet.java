@@ -1,14 +1,22 @@
 package io.kodokojo.api.endpoint.sse;
 
 import io.kodokojo.api.endpoint.BasicAuthenticator;
+import io.kodokojo.api.endpoint.BearerAuthenticator;
+import io.kodokojo.api.endpoint.UserAuthenticator;
+import io.kodokojo.api.service.ProjectMembershipIndex;
+import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenCredential;
 import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest;
+import io.kodokojo.commons.event.payload.TypeChange;
+import io.kodokojo.commons.model.Organisation;
 import io.kodokojo.commons.model.ProjectConfiguration;
 import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
 import io.kodokojo.commons.service.repository.ProjectFetcher;
 import io.kodokojo.commons.service.repository.UserFetcher;
 import javaslang.control.Try;
-import org.apache.commons.collections4.IteratorUtils;
 import org.eclipse.jetty.servlets.EventSource;
 import org.eclipse.jetty.servlets.EventSourceServlet;
 import org.slf4j.Logger;
@@ -16,9 +24,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
-import java.io.IOException;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
@@ -36,21 +45,40 @@ public class SseServlet extends EventSourceServlet implements EventBus.EventList
         EVENT_TYPE_WHITE_LIST.add(Event.PROJECTCONFIG_STARTED);
     }
 
-    private final Map<String, UserSession> caches;
+    private final SseSessionRegistry sessionRegistry;
+
+    private final ProjectSubscriberIndex subscriberIndex;
+
+    private final SseDispatcher dispatcher;
 
     private final ProjectFetcher projectFetcher;
 
+    private final OrganisationFetcher organisationFetcher;
+
     private final UserFetcher userFetcher;
 
-    private final Object monitor = new Object();
+    private final UserAuthenticator<TokenCredential> tokenUserAuthenticator;
+
+    private final ProjectMembershipIndex projectMembershipIndex;
 
     @Inject
-    public SseServlet(ProjectFetcher projectFetcher, UserFetcher userFetcher) {
+    public SseServlet(ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher, UserFetcher userFetcher, UserAuthenticator<TokenCredential> tokenUserAuthenticator, ProjectMembershipIndex projectMembershipIndex, SseSessionRegistry sessionRegistry, ProjectSubscriberIndex subscriberIndex, SseDispatcher dispatcher) {
         requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        requireNonNull(organisationFetcher, "organisationFetcher must be defined.");
         requireNonNull(userFetcher, "userFetcher must be defined.");
+        requireNonNull(tokenUserAuthenticator, "tokenUserAuthenticator must be defined.");
+        requireNonNull(projectMembershipIndex, "projectMembershipIndex must be defined.");
+        requireNonNull(sessionRegistry, "sessionRegistry must be defined.");
+        requireNonNull(subscriberIndex, "subscriberIndex must be defined.");
+        requireNonNull(dispatcher, "dispatcher must be defined.");
         this.projectFetcher = projectFetcher;
+        this.organisationFetcher = organisationFetcher;
         this.userFetcher = userFetcher;
-        this.caches = new HashMap<>();
+        this.tokenUserAuthenticator = tokenUserAuthenticator;
+        this.projectMembershipIndex = projectMembershipIndex;
+        this.sessionRegistry = sessionRegistry;
+        this.subscriberIndex = subscriberIndex;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -58,14 +86,22 @@ public class SseServlet extends EventSourceServlet implements EventBus.EventList
         requireNonNull(request, "request must be defined.");
         LOGGER.debug("Client ip '{}' try to create an SSE connection.", request.getRemoteAddr());
         String authenticationHeaderValue = request.getHeader(BasicAuthenticator.AUTHORIZATION_HEADER_NAME);
-        String[] userAndPassword = BasicAuthenticator.explodeUserAndPassword(authenticationHeaderValue);
-        if (userAndPassword != null && userAndPassword.length == 2) {
-            String username = userAndPassword[0];
+        TokenCredential tokenCredential = BearerAuthenticator.extractCredential(authenticationHeaderValue);
+        if (tokenCredential != null) {
+            User user = tokenUserAuthenticator.authenticate(tokenCredential);
+            if (user != null) {
+                return addUserSession(user, request).getOutput();
+            }
+            LOGGER.debug("Client ip '{}' provide an invalid or expired token.", request.getRemoteAddr());
+            return null;
+        }
+        SimpleCredential credential = BasicAuthenticator.extractCredential(authenticationHeaderValue);
+        if (credential != null) {
+            String username = credential.getUsername();
             User user = userFetcher.getUserByUsername(username);
-            if (user != null && user.getPassword().equals(userAndPassword[1])) {
+            if (user != null && user.getPassword().equals(credential.getPassword())) {
 
-                UserSession userSession = addUserSession(user, request);
-                return userSession.sseEventOutput;
+                return addUserSession(user, request).getOutput();
 
             } else {
                 LOGGER.debug("A user fail to be authenticated as user {}.", username);
@@ -78,24 +114,21 @@ public class SseServlet extends EventSourceServlet implements EventBus.EventList
     @Override
     public Try<Boolean> receive(Event event) {
         requireNonNull(event, "event must be defined.");
-        String data = Event.convertToJson(event);
+        if (Event.PROJECTCONFIG_CHANGE_USER_REQUEST.equals(event.getEventType())) {
+            return updateSubscribers(event);
+        }
         if (EVENT_TYPE_WHITE_LIST.contains(event.getEventType())) {
             Map<String, String> headers = event.getCustom();
             String projectConfigurationIdentifier = headers.get(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
             if (isNotBlank(projectConfigurationIdentifier)) {
-                ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(projectConfigurationIdentifier);
-                if (projectConfiguration != null) {
-                    Set<UserSession> usersToNotify = computeListOfUserFromProjectConfiguration(projectConfiguration);
-                    usersToNotify.forEach(u -> {
-                        try {
-                            u.sseEventOutput.send(data);
-                            if (LOGGER.isTraceEnabled()) {
-                                LOGGER.trace("Following event sent to user '{}':\n{}", u.user.getUsername(), Event.convertToPrettyJson(event));
-                            }
-                        } catch (IOException e) {
-                            LOGGER.error("Unable to send following event to user '{}': \n{}", u.user.getUsername(), Event.convertToPrettyJson(event), e);
-                        }
-                    });
+                Set<String> subscribers = getSubscribers(projectConfigurationIdentifier);
+                if (subscribers != null) {
+                    if (!subscribers.isEmpty()) {
+                        //  Encoded once, whatever the number of sessions.
+                        SseFrame frame = SseFrame.data(Event.convertToJson(event));
+                        String conflationKey = conflationKeyOf(event, projectConfigurationIdentifier);
+                        sessionRegistry.forEachSessionOf(subscribers, session -> dispatcher.dispatch(session, frame, conflationKey));
+                    }
                     return Try.success(true);
                 } else if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Receive event which contain projectConfigurationId '{}' which not allow to get a ProjectConfiguration.", projectConfigurationIdentifier);
@@ -109,59 +142,67 @@ public class SseServlet extends EventSourceServlet implements EventBus.EventList
         return Try.success(false);
     }
 
-    private Set<UserSession> computeListOfUserFromProjectConfiguration(ProjectConfiguration projectConfiguration) {
-        Map<String, UserSession> tmp = null;
-        synchronized (monitor) {
-            tmp = new HashMap<>(caches);
+    private static String conflationKeyOf(Event event, String projectConfigurationIdentifier) {
+        //  Brick state updates of a project configuration concern distinct bricks, none supersedes another.
+        if (Event.PROJECTCONFIG_STARTED.equals(event.getEventType())) {
+            return event.getEventType() + ":" + projectConfigurationIdentifier;
         }
-        final Map<String, UserSession> copy = tmp;
-        Set<User> users = new HashSet<>();
-        users.addAll(IteratorUtils.toList(projectConfiguration.getUsers()));
-        users.addAll(IteratorUtils.toList(projectConfiguration.getTeamLeaders()));
-        return users.stream()
-                .map(u -> copy.get(u.getIdentifier()))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        return null;
     }
 
-    private UserSession addUserSession(User user, HttpServletRequest request) {
-        UserSession userSession = new UserSession(user, new SSEEventOutput());
-        synchronized (monitor) {
-            caches.put(user.getIdentifier(), userSession);
+    private Set<String> getSubscribers(String projectConfigurationIdentifier) {
+        Set<String> res = subscriberIndex.getSubscribers(projectConfigurationIdentifier);
+        if (res == null) {
+            //  Project configuration created after its members connected.
+            ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(projectConfigurationIdentifier);
+            if (projectConfiguration != null) {
+                subscriberIndex.load(projectConfigurationIdentifier, projectMembershipIndex.getMembers(projectConfiguration));
+                res = subscriberIndex.getSubscribers(projectConfigurationIdentifier);
+            }
         }
-        return userSession;
+        return res;
     }
 
-    private class UserSession {
-
-        private final User user;
-
-        private final SSEEventOutput sseEventOutput;
-
-        private boolean open;
-
-        public UserSession(User user, SSEEventOutput sseEventOutput) {
-            requireNonNull(user, "user must be defined.");
-            requireNonNull(sseEventOutput, "sseEventOutput must be defined.");
-            this.user = user;
-            this.sseEventOutput = sseEventOutput;
-            this.open = true;
+    private Try<Boolean> updateSubscribers(Event event) {
+        ProjectConfigurationChangeUserRequest changeUserRequest = event.getPayload(ProjectConfigurationChangeUserRequest.class);
+        if (changeUserRequest == null || isBlank(changeUserRequest.getProjectConfigurationId()) || changeUserRequest.getUserIdentifiers() == null) {
+            LOGGER.debug("Receive a project configuration user change without project configuration or users.");
+            return Try.success(false);
         }
-
-        public void send(String data) throws IOException {
-            if (isBlank(data)) {
-                throw new IllegalArgumentException("data must be defined.");
-            }
-            sseEventOutput.send(data);
+        String projectConfigurationIdentifier = changeUserRequest.getProjectConfigurationId();
+        if (changeUserRequest.getTypeChange() == TypeChange.ADD) {
+            subscriberIndex.addMembers(projectConfigurationIdentifier, changeUserRequest.getUserIdentifiers());
+        } else {
+            subscriberIndex.removeMembers(projectConfigurationIdentifier, changeUserRequest.getUserIdentifiers());
         }
+        return Try.success(true);
+    }
 
-        public void onOpen(EventSource.Emitter emitter) throws IOException {
-            requireNonNull(emitter, "emitter must be defined.");
-            sseEventOutput.onOpen(emitter);
-        }
+    private SseSession addUserSession(User user, HttpServletRequest request) {
+        SseSession session = sessionRegistry.register(user.getIdentifier(), new SSEEventOutput(request));
+        subscribeToProjectConfigurations(user);
+        LOGGER.debug("User '{}' open SSE session {}.", user.getUsername(), session.getId());
+        return session;
+    }
 
-        public void onClose() {
-            sseEventOutput.onClose();
+    private void subscribeToProjectConfigurations(User user) {
+        String userIdentifier = user.getIdentifier();
+        subscriberIndex.connect(userIdentifier);
+        Set<String> organisationIds = user.getOrganisationIds();
+        if (organisationIds == null) {
+            return;
+        }
+        for (String organisationId : organisationIds) {
+            Organisation organisation = organisationFetcher.getOrganisationById(organisationId);
+            Iterator<ProjectConfiguration> projectConfigurations = organisation == null ? null : organisation.getProjectConfigurations();
+            if (projectConfigurations != null) {
+                projectConfigurations.forEachRemaining(projectConfiguration -> {
+                    Set<String> members = projectMembershipIndex.getMembers(projectConfiguration);
+                    if (members.contains(userIdentifier)) {
+                        subscriberIndex.subscribe(projectConfiguration.getIdentifier(), members, userIdentifier);
+                    }
+                });
+            }
         }
     }
 
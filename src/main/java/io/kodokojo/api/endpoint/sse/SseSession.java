@@ -0,0 +1,79 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * An SSE connection of a user. A user may have many sessions, one per connected browser tab.
+ */
+public class SseSession {
+
+    private final long id;
+
+    private final String userIdentifier;
+
+    private final SSEEventOutput output;
+
+    private final SseSessionQueue queue = new SseSessionQueue();
+
+    SseSession(long id, String userIdentifier, SSEEventOutput output) {
+        if (isBlank(userIdentifier)) {
+            throw new IllegalArgumentException("userIdentifier must be defined.");
+        }
+        requireNonNull(output, "output must be defined.");
+        this.id = id;
+        this.userIdentifier = userIdentifier;
+        this.output = output;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUserIdentifier() {
+        return userIdentifier;
+    }
+
+    public SSEEventOutput getOutput() {
+        return output;
+    }
+
+    SseSessionQueue getQueue() {
+        return queue;
+    }
+
+    public boolean send(String data) throws IOException {
+        return output.send(data);
+    }
+
+    public boolean send(SseFrame frame) throws IOException {
+        return output.send(frame);
+    }
+
+    /**
+     * Close the underlying connection, the session is then removed from its registry.
+     */
+    public void close() {
+        output.onClose();
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Events pending to be written on an {@link SseSession}, drained by a single writer at a time.
+ */
+class SseSessionQueue {
+
+    enum Offer {
+        QUEUED,
+        DROPPED_OLDEST,
+        CONFLATED,
+        REJECTED
+    }
+
+    private final Deque<Pending> frames = new ArrayDeque<>();
+
+    private boolean draining;
+
+    synchronized Offer offer(SseFrame frame, String conflationKey, int capacity, SseOverflowPolicy overflowPolicy) {
+        if (frames.size() < capacity) {
+            frames.add(new Pending(frame, conflationKey));
+            return Offer.QUEUED;
+        }
+        switch (overflowPolicy) {
+            case DISCONNECT:
+                return Offer.REJECTED;
+            case CONFLATE:
+                if (conflationKey != null) {
+                    Iterator<Pending> iterator = frames.iterator();
+                    while (iterator.hasNext()) {
+                        if (conflationKey.equals(iterator.next().conflationKey)) {
+                            iterator.remove();
+                            frames.add(new Pending(frame, conflationKey));
+                            return Offer.CONFLATED;
+                        }
+                    }
+                }
+                //  No event to conflate with, fall back to drop the oldest.
+            default:
+                frames.poll();
+                frames.add(new Pending(frame, conflationKey));
+                return Offer.DROPPED_OLDEST;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the caller become the writer of this queue and must drain it.
+     */
+    synchronized boolean startDraining() {
+        if (draining || frames.isEmpty()) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    /**
+     * @return The next frame to write, or <code>null</code> if the queue is empty, in which case the caller isn't
+     * the writer of this queue anymore.
+     */
+    synchronized SseFrame poll() {
+        Pending pending = frames.poll();
+        if (pending == null) {
+            draining = false;
+            return null;
+        }
+        return pending.frame;
+    }
+
+    /**
+     * Discard pending events, without changing the writer of this queue.
+     * @return The number of events discarded.
+     */
+    synchronized int clear() {
+        int res = frames.size();
+        frames.clear();
+        return res;
+    }
+
+    /**
+     * Discard pending events and stop being the writer of this queue; must only be called by the writer.
+     * @return The number of events discarded.
+     */
+    synchronized int stopDraining() {
+        int res = clear();
+        draining = false;
+        return res;
+    }
+
+    synchronized int size() {
+        return frames.size();
+    }
+
+    private static class Pending {
+
+        private final SseFrame frame;
+
+        private final String conflationKey;
+
+        Pending(SseFrame frame, String conflationKey) {
+            this.frame = frame;
+            this.conflationKey = conflationKey;
+        }
+    }
+
+}
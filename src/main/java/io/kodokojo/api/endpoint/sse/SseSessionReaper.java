@@ -0,0 +1,110 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Periodically close the registered {@link SseSession}s which are stalled.
+ * <p>
+ * A session is stalled when events were already pending on it at the previous reaping, which happen each idle timeout,
+ * are still pending, and no event had been written on it since. A session without pending event is never reaped. Broken connections are detected
+ * by the heartbeats Jetty sends on each session, which close the session on a failed write.
+ * </p>
+ */
+public class SseSessionReaper implements ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseSessionReaper.class);
+
+    private final SseSessionRegistry sessionRegistry;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final long idleTimeout;
+
+    private final LongAdder reapedCount = new LongAdder();
+
+    private Set<Long> pendingSessionIds = new HashSet<>();
+
+    /**
+     * @param sessionRegistry Registry of sessions to watch.
+     * @param scheduler Scheduler which run reaping.
+     * @param idleTimeout Time in milliseconds between two reaping, 0 to disable.
+     */
+    public SseSessionReaper(SseSessionRegistry sessionRegistry, ScheduledExecutorService scheduler, long idleTimeout) {
+        requireNonNull(sessionRegistry, "sessionRegistry must be defined.");
+        requireNonNull(scheduler, "scheduler must be defined.");
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout must be positive.");
+        }
+        this.sessionRegistry = sessionRegistry;
+        this.scheduler = scheduler;
+        this.idleTimeout = idleTimeout;
+    }
+
+    void reapStalledSessions() {
+        Set<Long> previousPendingSessionIds = pendingSessionIds;
+        Set<Long> currentPendingSessionIds = new HashSet<>();
+        sessionRegistry.forEach(session -> {
+            boolean written = session.getOutput().resetActivity();
+            if (session.getQueue().size() > 0) {
+                if (!written && previousPendingSessionIds.contains(session.getId())) {
+                    LOGGER.debug("Session {} of user '{}' don't write its pending events, closing it.", session.getId(), session.getUserIdentifier());
+                    reap(session);
+                } else {
+                    currentPendingSessionIds.add(session.getId());
+                }
+            }
+        });
+        pendingSessionIds = currentPendingSessionIds;
+    }
+
+    private void reap(SseSession session) {
+        if (sessionRegistry.unregister(session)) {
+            reapedCount.increment();
+        }
+        session.close();
+    }
+
+    public long reapedCount() {
+        return reapedCount.sum();
+    }
+
+    @Override
+    public void start() {
+        if (idleTimeout > 0) {
+            scheduler.scheduleWithFixedDelay(this::reapStalledSessions, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Hold the connected {@link SseSession}s, by user identifier.
+ * <p>
+ * Lookups don't take any lock nor copy the registry, so an event may be fanned out while sessions connect and
+ * disconnect. Iteration is weakly consistent: a session registered during a fan-out may or may not receive the event.
+ * </p>
+ * <p>
+ * A session is removed from the registry as soon as its connection is closed.
+ * </p>
+ */
+public class SseSessionRegistry {
+
+    private final ConcurrentMap<String, Set<SseSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final BiConsumer<String, BooleanSupplier> userDisconnectedListener;
+
+    public SseSessionRegistry() {
+        this((userIdentifier, stillDisconnected) -> {});
+    }
+
+    /**
+     * @param userDisconnectedListener Notified with the identifier of a user when its last session is removed, and
+     *                                 with a check telling whether the user still don't have any session, as the user
+     *                                 may reconnect before the listener run.
+     */
+    public SseSessionRegistry(BiConsumer<String, BooleanSupplier> userDisconnectedListener) {
+        requireNonNull(userDisconnectedListener, "userDisconnectedListener must be defined.");
+        this.userDisconnectedListener = userDisconnectedListener;
+    }
+
+    public SseSession register(String userIdentifier, SSEEventOutput output) {
+        if (isBlank(userIdentifier)) {
+            throw new IllegalArgumentException("userIdentifier must be defined.");
+        }
+        requireNonNull(output, "output must be defined.");
+        SseSession session = new SseSession(nextId.incrementAndGet(), userIdentifier, output);
+        output.setCloseListener(() -> unregister(session));
+        //  compute() keep a concurrent unregister from removing the set this session is added to.
+        sessionsByUser.compute(userIdentifier, (key, sessions) -> {
+            Set<SseSession> res = sessions == null ? ConcurrentHashMap.newKeySet() : sessions;
+            res.add(session);
+            return res;
+        });
+        size.incrementAndGet();
+        if (output.isClosed()) {
+            //  Connection closed before the listener had been set.
+            unregister(session);
+        }
+        return session;
+    }
+
+    /**
+     * @param session The session to remove.
+     * @return <code>true</code> if the session was registered.
+     */
+    public boolean unregister(SseSession session) {
+        requireNonNull(session, "session must be defined.");
+        boolean[] removed = new boolean[1];
+        Set<SseSession> remaining = sessionsByUser.computeIfPresent(session.getUserIdentifier(), (key, sessions) -> {
+            removed[0] = sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (removed[0]) {
+            size.decrementAndGet();
+            if (remaining == null) {
+                String userIdentifier = session.getUserIdentifier();
+                userDisconnectedListener.accept(userIdentifier, () -> !sessionsByUser.containsKey(userIdentifier));
+            }
+        }
+        return removed[0];
+    }
+
+    /**
+     * @param userIdentifier A user identifier.
+     * @return A live view of the sessions of given user.
+     */
+    public Set<SseSession> getSessionsOf(String userIdentifier) {
+        requireNonNull(userIdentifier, "userIdentifier must be defined.");
+        Set<SseSession> sessions = sessionsByUser.get(userIdentifier);
+        return sessions == null ? Collections.emptySet() : Collections.unmodifiableSet(sessions);
+    }
+
+    /**
+     * Apply an action to each session of given users.
+     * @param userIdentifiers Identifiers of users.
+     * @param action Action to apply.
+     */
+    public void forEachSessionOf(Iterable<String> userIdentifiers, Consumer<SseSession> action) {
+        requireNonNull(userIdentifiers, "userIdentifiers must be defined.");
+        requireNonNull(action, "action must be defined.");
+        for (String userIdentifier : userIdentifiers) {
+            Set<SseSession> sessions = sessionsByUser.get(userIdentifier);
+            if (sessions != null) {
+                sessions.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Apply an action to each registered session.
+     * @param action Action to apply.
+     */
+    public void forEach(Consumer<SseSession> action) {
+        requireNonNull(action, "action must be defined.");
+        sessionsByUser.values().forEach(sessions -> sessions.forEach(action));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.event.payload;
+
+import io.kodokojo.commons.event.payload.OrganisationChangeUserRequest;
+import io.kodokojo.commons.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Payload of an {@link io.kodokojo.commons.event.Event#ORGANISATION_CHANGE_ADMIN_REQUEST} which change a list of
+ * users in a single event, as {@link io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest} does
+ * for project configurations.
+ * <p>
+ * When the list contains a single user, <code>userId</code> is defined too, so the payload stay readable as an
+ * {@link OrganisationChangeUserRequest}.
+ * </p>
+ */
+public class OrganisationChangeUsersRequest {
+
+    private final User requester;
+
+    private final OrganisationChangeUserRequest.TypeChange typeChange;
+
+    private final String organisationId;
+
+    private final String userId;
+
+    private final List<String> userIdentifiers;
+
+    public OrganisationChangeUsersRequest(User requester, OrganisationChangeUserRequest.TypeChange typeChange, String organisationId, List<String> userIdentifiers) {
+        requireNonNull(requester, "requester must be defined.");
+        requireNonNull(typeChange, "typeChange must be defined.");
+        if (isBlank(organisationId)) {
+            throw new IllegalArgumentException("organisationId must be defined.");
+        }
+        requireNonNull(userIdentifiers, "userIdentifiers must be defined.");
+        this.requester = requester;
+        this.typeChange = typeChange;
+        this.organisationId = organisationId;
+        this.userIdentifiers = Collections.unmodifiableList(new ArrayList<>(userIdentifiers));
+        this.userId = userIdentifiers.size() == 1 ? userIdentifiers.get(0) : null;
+    }
+
+    public User getRequester() {
+        return requester;
+    }
+
+    public OrganisationChangeUserRequest.TypeChange getTypeChange() {
+        return typeChange;
+    }
+
+    public String getOrganisationId() {
+        return organisationId;
+    }
+
+    /**
+     * @return The identifier of the changed user if only one user is changed, <code>null</code> else.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<String> getUserIdentifiers() {
+        return userIdentifiers;
+    }
+}
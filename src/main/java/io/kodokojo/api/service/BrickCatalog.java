@@ -0,0 +1,58 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.commons.dto.BrickConfigDto;
+import io.kodokojo.commons.service.BrickFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Catalog of available bricks. The catalog don't change while the application run, so it's computed once.
+ */
+@Singleton
+public class BrickCatalog {
+
+    private final BrickFactory brickFactory;
+
+    private volatile List<BrickConfigDto> bricks;
+
+    @Inject
+    public BrickCatalog(BrickFactory brickFactory) {
+        requireNonNull(brickFactory, "brickFactory must be defined.");
+        this.brickFactory = brickFactory;
+    }
+
+    public List<BrickConfigDto> getBricks() {
+        List<BrickConfigDto> res = bricks;
+        if (res == null) {
+            res = Collections.unmodifiableList(brickFactory.listBrickAvailable().stream()
+                    .map(b -> new BrickConfigDto(b.getName(), b.getType().name(), b.getVersion()))
+                    .collect(Collectors.toList()));
+            bricks = res;
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Stop requesting an unresponsive backend.
+ * <p>
+ * The circuit opens after a number of consecutive failures, requests then fail fast. Once the open duration elapsed,
+ * the circuit is half open: a limited number of trial requests are allowed, the first success closes the circuit,
+ * a failure opens it again.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long openDurationInNanos;
+
+    private final int halfOpenRequests;
+
+    private final LongSupplier clock;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder transitionCount = new LongAdder();
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private int pendingTrials;
+
+    private long openedAt;
+
+    /**
+     * @param name Name of the circuit, used in logs.
+     * @param failureThreshold Number of consecutive failures which open the circuit.
+     * @param openDuration Time during which requests fail fast once the circuit is open.
+     * @param halfOpenRequests Number of trial requests allowed at the same time when the circuit is half open.
+     * @param timeUnit Unit of openDuration.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDuration, int halfOpenRequests, TimeUnit timeUnit) {
+        this(name, failureThreshold, openDuration, halfOpenRequests, timeUnit, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openDuration, int halfOpenRequests, TimeUnit timeUnit, LongSupplier clock) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be greater than 0.");
+        }
+        if (openDuration <= 0) {
+            throw new IllegalArgumentException("openDuration must be greater than 0.");
+        }
+        if (halfOpenRequests <= 0) {
+            throw new IllegalArgumentException("halfOpenRequests must be greater than 0.");
+        }
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationInNanos = timeUnit.toNanos(openDuration);
+        this.halfOpenRequests = halfOpenRequests;
+        this.clock = clock;
+    }
+
+    /**
+     * @return <code>true</code> if a request may be made, its outcome must then be reported with {@link #onSuccess()},
+     * {@link #onFailure()} or {@link #onCancel()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationInNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && pendingTrials < halfOpenRequests) {
+            pendingTrials++;
+            return true;
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            endTrial();
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            endTrial();
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Report a request which had not been made after all.
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            endTrial();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Time in milliseconds before trial requests are allowed, 0 if the circuit isn't open.
+     */
+    public synchronized long remainingOpenTime() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openedAt + openDurationInNanos - clock.getAsLong()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long transitionCount() {
+        return transitionCount.sum();
+    }
+
+    private void endTrial() {
+        //  A request acquired before the circuit opened may end while half open.
+        pendingTrials = Math.max(0, pendingTrials - 1);
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            LOGGER.warn("Circuit of {} requests change from {} to {}.", name, state, newState);
+            state = newState;
+            transitionCount.increment();
+        }
+        if (newState != State.HALF_OPEN) {
+            pendingTrials = 0;
+        }
+        if (newState == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+}
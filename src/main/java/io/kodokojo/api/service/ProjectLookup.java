@@ -0,0 +1,174 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.service.cache.ExpiringCache;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Resolve a project with its project configuration and its organisation.
+ * <p>
+ * Each step of the chain need the identifier returned by the previous one, so a first lookup is sequential.
+ * Once known, the identifiers of the chain are kept, they never change for a given project, and next lookups
+ * fetch the three entities in parallel.
+ */
+public class ProjectLookup implements ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectLookup.class);
+
+    private final ProjectFetcher projectFetcher;
+
+    private final OrganisationFetcher organisationFetcher;
+
+    private final ExecutorService executorService;
+
+    private final ExpiringCache<String, Links> linksByProjectId;
+
+    public ProjectLookup(ProjectFetcher projectFetcher, OrganisationFetcher organisationFetcher, ExecutorService executorService, int size, long linksTtl, TimeUnit timeUnit) {
+        requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        requireNonNull(organisationFetcher, "organisationFetcher must be defined.");
+        requireNonNull(executorService, "executorService must be defined.");
+        this.projectFetcher = projectFetcher;
+        this.organisationFetcher = organisationFetcher;
+        this.executorService = executorService;
+        this.linksByProjectId = new ExpiringCache<>(size, linksTtl, timeUnit);
+    }
+
+    /**
+     * @param projectId Identifier of the project to lookup.
+     * @return The project hierarchy, which contain a <code>null</code> project if no project exist with given identifier.
+     */
+    public ProjectHierarchy lookup(String projectId) {
+        if (isBlank(projectId)) {
+            throw new IllegalArgumentException("projectId must be defined.");
+        }
+        Links links = linksByProjectId.get(projectId);
+        if (links != null) {
+            ProjectHierarchy res = parallelLookup(projectId, links);
+            if (res.matches(links)) {
+                return res;
+            }
+            linksByProjectId.invalidate(projectId);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Identifiers of project '{}' don't match its known hierarchy, lookup it again.", projectId);
+            }
+        }
+        return sequentialLookup(projectId);
+    }
+
+    private ProjectHierarchy sequentialLookup(String projectId) {
+        Project project = projectFetcher.getProjectByIdentifier(projectId);
+        if (project == null) {
+            return new ProjectHierarchy(null, null, null);
+        }
+        ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(project.getProjectConfigurationIdentifier());
+        if (projectConfiguration == null) {
+            return new ProjectHierarchy(project, null, null);
+        }
+        Organisation organisation = organisationFetcher.getOrganisationById(projectConfiguration.getEntityIdentifier());
+        if (organisation != null) {
+            linksByProjectId.put(projectId, new Links(projectConfiguration.getIdentifier(), organisation.getIdentifier()));
+        }
+        return new ProjectHierarchy(project, projectConfiguration, organisation);
+    }
+
+    private ProjectHierarchy parallelLookup(String projectId, Links links) {
+        CompletableFuture<Project> project = CompletableFuture.supplyAsync(() -> projectFetcher.getProjectByIdentifier(projectId), executorService);
+        CompletableFuture<ProjectConfiguration> projectConfiguration = CompletableFuture.supplyAsync(() -> projectFetcher.getProjectConfigurationById(links.projectConfigurationId), executorService);
+        Organisation organisation = organisationFetcher.getOrganisationById(links.organisationId);
+        try {
+            return new ProjectHierarchy(project.join(), projectConfiguration.join(), organisation);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void stop() {
+        executorService.shutdown();
+    }
+
+    public static class ProjectHierarchy {
+
+        private final Project project;
+
+        private final ProjectConfiguration projectConfiguration;
+
+        private final Organisation organisation;
+
+        ProjectHierarchy(Project project, ProjectConfiguration projectConfiguration, Organisation organisation) {
+            this.project = project;
+            this.projectConfiguration = projectConfiguration;
+            this.organisation = organisation;
+        }
+
+        public Project getProject() {
+            return project;
+        }
+
+        public ProjectConfiguration getProjectConfiguration() {
+            return projectConfiguration;
+        }
+
+        public Organisation getOrganisation() {
+            return organisation;
+        }
+
+        private boolean matches(Links links) {
+            return project != null && projectConfiguration != null && organisation != null &&
+                    links.projectConfigurationId.equals(project.getProjectConfigurationIdentifier()) &&
+                    links.organisationId.equals(projectConfiguration.getEntityIdentifier());
+        }
+    }
+
+    private static class Links {
+
+        private final String projectConfigurationId;
+
+        private final String organisationId;
+
+        Links(String projectConfigurationId, String organisationId) {
+            this.projectConfigurationId = projectConfigurationId;
+            this.organisationId = organisationId;
+        }
+    }
+
+}
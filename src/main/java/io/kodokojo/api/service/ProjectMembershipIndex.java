@@ -0,0 +1,101 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.service.cache.ExpiringCache;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index the identifiers of users and team leaders of each project configuration, so membership checks don't walk
+ * the members of a project configuration on each call.
+ * <p>
+ * An index is built once per fetched instance of a project configuration: a new instance, fetched after a change,
+ * replace the previous index.
+ */
+public class ProjectMembershipIndex {
+
+    private final ExpiringCache<String, Membership> memberships;
+
+    public ProjectMembershipIndex(int size, long ttl, TimeUnit timeUnit) {
+        this.memberships = new ExpiringCache<>(size, ttl, timeUnit);
+    }
+
+    /**
+     * @return <code>true</code> if given user is a user or a team leader of the project configuration.
+     */
+    public boolean isMember(ProjectConfiguration projectConfiguration, String userIdentifier) {
+        return membership(projectConfiguration).members.contains(userIdentifier);
+    }
+
+    public boolean isTeamLeader(ProjectConfiguration projectConfiguration, String userIdentifier) {
+        return membership(projectConfiguration).teamLeaders.contains(userIdentifier);
+    }
+
+    /**
+     * @return Identifiers of users and team leaders of the project configuration.
+     */
+    public Set<String> getMembers(ProjectConfiguration projectConfiguration) {
+        return membership(projectConfiguration).members;
+    }
+
+    private Membership membership(ProjectConfiguration projectConfiguration) {
+        requireNonNull(projectConfiguration, "projectConfiguration must be defined.");
+        String identifier = projectConfiguration.getIdentifier();
+        Membership membership = memberships.get(identifier);
+        if (membership == null || membership.projectConfiguration != projectConfiguration) {
+            membership = new Membership(projectConfiguration);
+            memberships.put(identifier, membership);
+        }
+        return membership;
+    }
+
+    private static class Membership {
+
+        private final ProjectConfiguration projectConfiguration;
+
+        private final Set<String> members;
+
+        private final Set<String> teamLeaders;
+
+        Membership(ProjectConfiguration projectConfiguration) {
+            this.projectConfiguration = projectConfiguration;
+            Set<String> leaders = new HashSet<>();
+            addIdentifiers(leaders, projectConfiguration.getTeamLeaders());
+            Set<String> all = new HashSet<>(leaders);
+            addIdentifiers(all, projectConfiguration.getUsers());
+            this.teamLeaders = Collections.unmodifiableSet(leaders);
+            this.members = Collections.unmodifiableSet(all);
+        }
+
+        private static void addIdentifiers(Set<String> identifiers, Iterator<User> users) {
+            if (users != null) {
+                users.forEachRemaining(user -> identifiers.add(user.getIdentifier()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+
+/**
+ * Hold user identifiers issued in advance, so a new identifier may be served without an event request.
+ * <p>
+ * When the number of available identifiers falls below the low water mark, the pool is refilled up to its capacity
+ * in background. An identifier is served only once, and is discarded once older than the max age.
+ * </p>
+ * <p>
+ * Refills go through the circuit breaker of identifier requests, so the pool doesn't keep requesting identifiers
+ * from a backend which fails them.
+ * </p>
+ */
+public class UserIdentifierPool implements ApplicationLifeCycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserIdentifierPool.class);
+
+    private final EventBus eventBus;
+
+    private final EventBuilderFactory eventBuilderFactory;
+
+    private final ExecutorService refillExecutor;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final int capacity;
+
+    private final int lowWaterMark;
+
+    private final long requestTimeout;
+
+    private final long maxAgeInNanos;
+
+    private final Queue<PooledIdentifier> identifiers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    private final AtomicLong lastRefillLatency = new AtomicLong();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder expiredCount = new LongAdder();
+
+    /**
+     * @param eventBus The event bus used to request new identifiers.
+     * @param eventBuilderFactory Factory of identifier requests.
+     * @param refillExecutor Executor which run the refills.
+     * @param circuitBreaker Circuit breaker of {@link Event#USER_IDENTIFIER_CREATION_REQUEST} requests.
+     * @param capacity Maximum number of identifiers held.
+     * @param lowWaterMark Number of identifiers under which the pool is refilled.
+     * @param requestTimeout Time in milliseconds to wait for each identifier.
+     * @param maxAge Time in milliseconds after which a pooled identifier is discarded.
+     */
+    public UserIdentifierPool(EventBus eventBus, EventBuilderFactory eventBuilderFactory, ExecutorService refillExecutor, CircuitBreaker circuitBreaker, int capacity, int lowWaterMark, long requestTimeout, long maxAge) {
+        requireNonNull(eventBus, "eventBus must be defined.");
+        requireNonNull(eventBuilderFactory, "eventBuilderFactory must be defined.");
+        requireNonNull(refillExecutor, "refillExecutor must be defined.");
+        requireNonNull(circuitBreaker, "circuitBreaker must be defined.");
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        if (lowWaterMark < 0 || lowWaterMark > capacity) {
+            throw new IllegalArgumentException("lowWaterMark must be between 0 and capacity.");
+        }
+        if (requestTimeout <= 0) {
+            throw new IllegalArgumentException("requestTimeout must be greater than 0.");
+        }
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge must be greater than 0.");
+        }
+        this.eventBus = eventBus;
+        this.eventBuilderFactory = eventBuilderFactory;
+        this.refillExecutor = refillExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.requestTimeout = requestTimeout;
+        this.maxAgeInNanos = TimeUnit.MILLISECONDS.toNanos(maxAge);
+    }
+
+    /**
+     * Take an identifier from the pool.
+     * @return An identifier, as replied to a {@link Event#USER_IDENTIFIER_CREATION_REQUEST}, or <code>null</code> if the pool is empty.
+     */
+    public String poll() {
+        long now = System.nanoTime();
+        String identifier = null;
+        PooledIdentifier pooled;
+        while (identifier == null && (pooled = identifiers.poll()) != null) {
+            size.decrementAndGet();
+            if (now - pooled.issuedAt < maxAgeInNanos) {
+                identifier = pooled.identifier;
+            } else {
+                expiredCount.increment();
+            }
+        }
+        if (identifier == null) {
+            missCount.increment();
+        }
+        if (size.get() < lowWaterMark || identifier == null) {
+            refillAsync();
+        }
+        return identifier;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return Time in milliseconds spent by the last refill.
+     */
+    public long lastRefillLatency() {
+        return lastRefillLatency.get();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    private void refillAsync() {
+        if (capacity > 0 && refilling.compareAndSet(false, true)) {
+            try {
+                refillExecutor.execute(this::refill);
+            } catch (RejectedExecutionException e) {
+                refilling.set(false);
+                LOGGER.debug("Unable to refill user identifier pool, executor is stopped.");
+            }
+        }
+    }
+
+    private void refill() {
+        long begin = System.nanoTime();
+        int added = 0;
+        try {
+            while (size.get() < capacity) {
+                if (!circuitBreaker.tryAcquire()) {
+                    LOGGER.debug("Circuit of user identifier requests is open, stop refilling user identifier pool.");
+                    break;
+                }
+                String identifier = requestIdentifier();
+                if (identifier == null) {
+                    break;
+                }
+                identifiers.add(new PooledIdentifier(identifier, System.nanoTime()));
+                size.incrementAndGet();
+                added++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to refill user identifier pool.", e);
+        } finally {
+            lastRefillLatency.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            refilling.set(false);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Add {} user identifiers to pool in {} ms.", added, lastRefillLatency.get());
+        }
+    }
+
+    private String requestIdentifier() throws InterruptedException {
+        Event request = eventBuilderFactory.create()
+                .setEventType(Event.USER_IDENTIFIER_CREATION_REQUEST)
+                .setJsonPayload("")
+                .build();
+        Event reply;
+        try {
+            reply = eventBus.request(request, (int) Math.min(requestTimeout, Integer.MAX_VALUE), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            circuitBreaker.onCancel();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        if (reply != null && isNotBlank(reply.getPayload())) {
+            circuitBreaker.onSuccess();
+            return reply.getPayload();
+        }
+        circuitBreaker.onFailure();
+        LOGGER.warn("Unable to get a new user identifier to fill pool.");
+        return null;
+    }
+
+    @Override
+    public void start() {
+        refillAsync();
+    }
+
+    @Override
+    public void stop() {
+        refillExecutor.shutdownNow();
+    }
+
+    private static class PooledIdentifier {
+
+        private final String identifier;
+
+        private final long issuedAt;
+
+        PooledIdentifier(String identifier, long issuedAt) {
+            this.identifier = identifier;
+            this.issuedAt = issuedAt;
+        }
+    }
+
+}
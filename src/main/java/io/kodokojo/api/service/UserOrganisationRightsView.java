@@ -0,0 +1,172 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.event.payload.OrganisationChangeUsersRequest;
+import io.kodokojo.api.service.cache.ExpiringCache;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.dto.UserOrganisationRightDto;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+
+/**
+ * Materialized organisation rights of each user, computed once and kept until an event change the organisations
+ * or the project configurations the user is member of.
+ * <p>
+ * Each event only drops the rights of the users it concerns: the users it names, and the users member of the
+ * organisation it changes. The organisation of a started project configuration is resolved from the organisations
+ * read while computing rights, so events are handled without any lookup in the repository. A project configuration
+ * creation doesn't tell its organisation in its headers, so it drops the rights of all users.
+ * </p>
+ * <p>
+ * Rights are cached only if no invalidation happened while they were computed.
+ * </p>
+ */
+public class UserOrganisationRightsView implements EventBus.EventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserOrganisationRightsView.class);
+
+    private final OrganisationFetcher organisationFetcher;
+
+    private final Function<User, List<UserOrganisationRightDto>> rightsComputer;
+
+    private final ExpiringCache<String, List<UserOrganisationRightDto>> rightsByUser;
+
+    private final ExpiringCache<String, String> organisationByProjectConfiguration;
+
+    public UserOrganisationRightsView(OrganisationFetcher organisationFetcher, ProjectFetcher projectFetcher, int size, int projectConfigurationSize, long ttl, TimeUnit timeUnit, MetricRegistry metricRegistry) {
+        this(organisationFetcher, user -> UserOrganisationRightDto.computeUserOrganisationRights(user, organisationFetcher, projectFetcher), size, projectConfigurationSize, ttl, timeUnit, metricRegistry);
+        requireNonNull(projectFetcher, "projectFetcher must be defined.");
+    }
+
+    UserOrganisationRightsView(OrganisationFetcher organisationFetcher, Function<User, List<UserOrganisationRightDto>> rightsComputer, int size, int projectConfigurationSize, long ttl, TimeUnit timeUnit, MetricRegistry metricRegistry) {
+        requireNonNull(organisationFetcher, "organisationFetcher must be defined.");
+        requireNonNull(rightsComputer, "rightsComputer must be defined.");
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        this.organisationFetcher = organisationFetcher;
+        this.rightsComputer = rightsComputer;
+        this.rightsByUser = new ExpiringCache<>(size, ttl, timeUnit);
+        this.organisationByProjectConfiguration = new ExpiringCache<>(projectConfigurationSize, ttl, timeUnit);
+        metricRegistry.cache("repository.cache.organisationRights", rightsByUser);
+    }
+
+    public List<UserOrganisationRightDto> getOrganisationRights(User user) {
+        requireNonNull(user, "user must be defined.");
+        String userIdentifier = user.getIdentifier();
+        List<UserOrganisationRightDto> res = rightsByUser.get(userIdentifier);
+        if (res == null) {
+            long generation = rightsByUser.generation();
+            res = Collections.unmodifiableList(rightsComputer.apply(user));
+            res.forEach(organisationRight -> learnProjectConfigurations(organisationRight.getIdentifier()));
+            rightsByUser.put(userIdentifier, res, generation);
+        }
+        return res;
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String eventType = event.getEventType();
+        Map<String, String> custom = event.getCustom();
+        if (Event.USER_UPDATE_REQUEST.equals(eventType)) {
+            String userIdentifier = custom == null ? null : custom.get(Event.REQUESTER_ID_CUSTOM_HEADER);
+            if (isNotBlank(userIdentifier)) {
+                rightsByUser.invalidate(userIdentifier);
+            } else {
+                rightsByUser.invalidateAll();
+            }
+        } else if (Event.ORGANISATION_CHANGE_ADMIN_REQUEST.equals(eventType)) {
+            //  Read the single user form as well, as its fields are a subset of the batched one.
+            OrganisationChangeUsersRequest changeUsersRequest = event.getPayload(OrganisationChangeUsersRequest.class);
+            if (changeUsersRequest != null && isNotBlank(changeUsersRequest.getOrganisationId())) {
+                Set<String> userIdentifiers = new HashSet<>();
+                if (changeUsersRequest.getUserIdentifiers() != null) {
+                    userIdentifiers.addAll(changeUsersRequest.getUserIdentifiers());
+                }
+                if (isNotBlank(changeUsersRequest.getUserId())) {
+                    userIdentifiers.add(changeUsersRequest.getUserId());
+                }
+                invalidate(changeUsersRequest.getOrganisationId(), userIdentifiers);
+            } else {
+                rightsByUser.invalidateAll();
+            }
+        } else if (Event.PROJECTCONFIG_CREATION_REQUEST.equals(eventType)) {
+            rightsByUser.invalidateAll();
+        } else if (Event.PROJECTCONFIG_CHANGE_USER_REQUEST.equals(eventType)) {
+            ProjectConfigurationChangeUserRequest changeUserRequest = event.getPayload(ProjectConfigurationChangeUserRequest.class);
+            if (changeUserRequest != null && changeUserRequest.getUserIdentifiers() != null) {
+                invalidate(null, new HashSet<>(changeUserRequest.getUserIdentifiers()));
+            } else {
+                rightsByUser.invalidateAll();
+            }
+        } else if (Event.PROJECTCONFIG_STARTED.equals(eventType)) {
+            String projectConfigurationIdentifier = custom == null ? null : custom.get(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER);
+            String organisationIdentifier = isNotBlank(projectConfigurationIdentifier) ? organisationByProjectConfiguration.get(projectConfigurationIdentifier) : null;
+            if (organisationIdentifier != null) {
+                invalidate(organisationIdentifier, Collections.emptySet());
+            } else {
+                rightsByUser.invalidateAll();
+            }
+        } else {
+            return Try.success(false);
+        }
+        return Try.success(true);
+    }
+
+    private void learnProjectConfigurations(String organisationIdentifier) {
+        //  Organisations are already loaded to compute the rights, this lookup is served from the repository cache.
+        Organisation organisation = organisationFetcher.getOrganisationById(organisationIdentifier);
+        Iterator<ProjectConfiguration> projectConfigurations = organisation == null ? null : organisation.getProjectConfigurations();
+        while (projectConfigurations != null && projectConfigurations.hasNext()) {
+            organisationByProjectConfiguration.put(projectConfigurations.next().getIdentifier(), organisationIdentifier);
+        }
+    }
+
+    /**
+     * Drop the rights of given users and of the users member of given organisation, in a single invalidation.
+     */
+    private void invalidate(String organisationIdentifier, Set<String> userIdentifiers) {
+        int removed = rightsByUser.invalidateIf((userIdentifier, organisationRights) -> userIdentifiers.contains(userIdentifier) ||
+                (organisationIdentifier != null && organisationRights.stream().anyMatch(organisationRight -> organisationIdentifier.equals(organisationRight.getIdentifier()))));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Invalidate organisation rights of {} user(s) concerned by organisation '{}' or users {}.", removed, organisationIdentifier, userIdentifiers);
+        }
+    }
+
+}
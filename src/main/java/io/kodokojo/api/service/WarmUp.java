@@ -0,0 +1,147 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.config.WarmUpConfig;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+import static org.apache.commons.lang.StringUtils.split;
+
+/**
+ * Preload the brick catalog and the configured organisations and project configurations in the in-process caches,
+ * so first requests after a start don't pay for cold caches.
+ * <p>
+ * Traffic is accepted once the warm up is done, so its budget is bounded by half of the cache time to live,
+ * otherwise warmed entries would expire before the first requests.
+ * </p>
+ */
+public class WarmUp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+
+    private static final int MAX_THREADS = 8;
+
+    private final WarmUpConfig warmUpConfig;
+
+    private final OrganisationFetcher organisationFetcher;
+
+    private final ProjectFetcher projectFetcher;
+
+    private final BrickCatalog brickCatalog;
+
+    private final RepositoryCacheConfig repositoryCacheConfig;
+
+    @Inject
+    public WarmUp(WarmUpConfig warmUpConfig, OrganisationFetcher organisationFetcher, ProjectFetcher projectFetcher, BrickCatalog brickCatalog, RepositoryCacheConfig repositoryCacheConfig) {
+        requireNonNull(warmUpConfig, "warmUpConfig must be defined.");
+        requireNonNull(organisationFetcher, "organisationFetcher must be defined.");
+        requireNonNull(projectFetcher, "projectFetcher must be defined.");
+        requireNonNull(brickCatalog, "brickCatalog must be defined.");
+        requireNonNull(repositoryCacheConfig, "repositoryCacheConfig must be defined.");
+        this.warmUpConfig = warmUpConfig;
+        this.organisationFetcher = organisationFetcher;
+        this.projectFetcher = projectFetcher;
+        this.brickCatalog = brickCatalog;
+        this.repositoryCacheConfig = repositoryCacheConfig;
+    }
+
+    /**
+     * Run the warm up, if enabled, in parallel and within the configured budget. Lookups not done when the budget is
+     * exhausted are cancelled.
+     * @return The number of lookups done.
+     */
+    public int run() {
+        if (!Boolean.TRUE.equals(warmUpConfig.enabled())) {
+            return 0;
+        }
+        long budget = budget();
+        long start = System.nanoTime();
+        List<Callable<Object>> tasks = new ArrayList<>();
+        tasks.add(brickCatalog::getBricks);
+        for (String organisationId : identifiers(warmUpConfig.organisationIds())) {
+            tasks.add(() -> organisationFetcher.getOrganisationById(organisationId));
+        }
+        for (String projectConfigurationId : identifiers(warmUpConfig.projectConfigurationIds())) {
+            tasks.add(() -> {
+                ProjectConfiguration projectConfiguration = projectFetcher.getProjectConfigurationById(projectConfigurationId);
+                return projectConfiguration == null ? null : organisationFetcher.getOrganisationById(projectConfiguration.getEntityIdentifier());
+            });
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(MAX_THREADS, tasks.size()), runnable -> {
+            Thread thread = new Thread(runnable, "warm-up-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int done = 0;
+        try {
+            List<Future<Object>> futures = executorService.invokeAll(tasks, budget, TimeUnit.MILLISECONDS);
+            for (Future<Object> future : futures) {
+                try {
+                    future.get();
+                    done++;
+                } catch (CancellationException e) {
+                    //  Budget exhausted.
+                } catch (ExecutionException e) {
+                    LOGGER.warn("A warm up lookup failed.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdownNow();
+        }
+        LOGGER.info("Warm up done {} of {} lookups in {} ms.", done, tasks.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return done;
+    }
+
+    private long budget() {
+        long maxBudget = repositoryCacheConfig.ttl() / 2;
+        if (warmUpConfig.budget() > maxBudget) {
+            LOGGER.warn("Warm up budget of {} ms is reduced to {} ms, half of the cache time to live, so warmed entries don't expire before traffic is accepted.",
+                    warmUpConfig.budget(), maxBudget);
+            return maxBudget;
+        }
+        return warmUpConfig.budget();
+    }
+
+    private static String[] identifiers(String value) {
+        return isNotBlank(value) ? split(value, ", ") : new String[0];
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.authentification;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Count failed authentications by client ip and by client ip and username, in order to reject a misbehaving client
+ * before any lookup in the user repository.
+ * <p>
+ * Failures are counted in a count-min sketch of fixed size, so memory used don't depend on the number of clients.
+ * Counters are updated without lock and are halved at each decay period.
+ * A sketch may overestimate a count but never underestimate it.
+ * <p>
+ * Each row of the sketch hashes the whole key with murmur3 and its own seed, drawn at random on creation, so a client
+ * can't choose usernames which share the counters of another client.
+ * </p>
+ */
+public class AuthenticationThrottler {
+
+    private static final int DEPTH = 4;
+
+    //  Separate the ip from the username in a key, an ip never contains it.
+    private static final char SEPARATOR = '\u0000';
+
+    private final int[] seeds;
+
+    private final int mask;
+
+    private final AtomicIntegerArray counters;
+
+    private final int maxFailuresByUsername;
+
+    private final int maxFailuresByIp;
+
+    private final long decayPeriodInNanos;
+
+    private final AtomicLong lastDecay;
+
+    private final LongSupplier clock;
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public AuthenticationThrottler(int size, int maxFailuresByUsername, int maxFailuresByIp, long decayPeriod, TimeUnit timeUnit) {
+        this(size, maxFailuresByUsername, maxFailuresByIp, decayPeriod, timeUnit, System::nanoTime);
+    }
+
+    AuthenticationThrottler(int size, int maxFailuresByUsername, int maxFailuresByIp, long decayPeriod, TimeUnit timeUnit, LongSupplier clock) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be greater than 0.");
+        }
+        if (maxFailuresByUsername <= 0) {
+            throw new IllegalArgumentException("maxFailuresByUsername must be greater than 0.");
+        }
+        if (maxFailuresByIp <= 0) {
+            throw new IllegalArgumentException("maxFailuresByIp must be greater than 0.");
+        }
+        if (decayPeriod <= 0) {
+            throw new IllegalArgumentException("decayPeriod must be greater than 0.");
+        }
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        int width = Integer.highestOneBit(Math.min(size, 1 << 24));
+        if (width < size) {
+            width <<= 1;
+        }
+        this.mask = width - 1;
+        SecureRandom random = new SecureRandom();
+        this.seeds = new int[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            seeds[row] = random.nextInt();
+        }
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.maxFailuresByUsername = maxFailuresByUsername;
+        this.maxFailuresByIp = maxFailuresByIp;
+        this.decayPeriodInNanos = timeUnit.toNanos(decayPeriod);
+        this.clock = clock;
+        this.lastDecay = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * @param ip Client ip.
+     * @param username Username used to authenticate, may be <code>null</code>.
+     * @return <code>true</code> if client must be rejected without trying to authenticate it.
+     */
+    public boolean isThrottled(String ip, String username) {
+        if (isBlank(ip)) {
+            return false;
+        }
+        decayIfRequired();
+        boolean throttled = estimate(ip, null) >= maxFailuresByIp ||
+                (username != null && estimate(ip, username) >= maxFailuresByUsername);
+        if (throttled) {
+            rejectedCount.increment();
+        }
+        return throttled;
+    }
+
+    public void recordFailure(String ip, String username) {
+        if (isBlank(ip)) {
+            return;
+        }
+        decayIfRequired();
+        failureCount.increment();
+        increment(ip, null);
+        if (username != null) {
+            increment(ip, username);
+        }
+    }
+
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long retryAfterInSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decayPeriodInNanos));
+    }
+
+    private int estimate(String ip, String username) {
+        int res = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            res = Math.min(res, counters.get(index(row, ip, username)));
+        }
+        return res;
+    }
+
+    private void increment(String ip, String username) {
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(row, ip, username);
+            counters.getAndUpdate(index, count -> count == Integer.MAX_VALUE ? count : count + 1);
+        }
+    }
+
+    private void decayIfRequired() {
+        long now = clock.getAsLong();
+        long last = lastDecay.get();
+        long periods = (now - last) / decayPeriodInNanos;
+        if (periods > 0 && lastDecay.compareAndSet(last, last + periods * decayPeriodInNanos)) {
+            int shift = (int) Math.min(periods, 31);
+            for (int i = 0; i < counters.length(); i++) {
+                counters.getAndUpdate(i, count -> count >>> shift);
+            }
+        }
+    }
+
+    private int index(int row, String ip, String username) {
+        return row * (mask + 1) + (hash(seeds[row], ip, username) & mask);
+    }
+
+    /**
+     * Murmur3 32 bits hash of the UTF-16 chars of the ip, followed by a separator and the username if defined.
+     */
+    static int hash(int seed, String ip, String username) {
+        int h = seed;
+        int length = ip.length() + (username == null ? 0 : username.length() + 1);
+        int i = 1;
+        for (; i < length; i += 2) {
+            int k = charAt(ip, username, i - 1) | (charAt(ip, username, i) << 16);
+            h = mixH(h, mixK(k));
+        }
+        if (i == length) {
+            h ^= mixK(charAt(ip, username, length - 1));
+        }
+        h ^= 2 * length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static char charAt(String ip, String username, int index) {
+        int ipLength = ip.length();
+        if (index < ipLength) {
+            return ip.charAt(index);
+        }
+        return index == ipLength ? SEPARATOR : username.charAt(index - ipLength - 1);
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        k *= 0x1b873593;
+        return k;
+    }
+
+    private static int mixH(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        h = h * 5 + 0xe6546b64;
+        return h;
+    }
+
+}
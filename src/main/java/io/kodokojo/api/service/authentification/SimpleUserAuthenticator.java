@@ -17,22 +17,62 @@
  */
 package io.kodokojo.api.service.authentification;
 
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.service.ReplyListener;
+import io.kodokojo.api.service.cache.ExpiringCache;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.api.endpoint.UserAuthenticator;
 import io.kodokojo.commons.service.repository.UserFetcher;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
 
-public class SimpleUserAuthenticator implements UserAuthenticator<SimpleCredential> {
+/**
+ * Authenticate users from their username and password, caching the verified credentials.
+ * <p>
+ * Verified credentials of a user are invalidated when an update of the user is requested, and again once the update
+ * is replied, when the backend has applied it. A lookup started before an invalidation never cache its result.
+ * </p>
+ */
+public class SimpleUserAuthenticator implements UserAuthenticator<SimpleCredential>, EventBus.EventListener, ReplyListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimpleUserAuthenticator.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final ThreadLocal<MessageDigest> localDigest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to create a " + DIGEST_ALGORITHM + " digest.", e);
+        }
+    });
 
     private final UserFetcher userFetcher;
 
+    private final ExpiringCache<String, VerifiedCredential> verifiedCredentials;
+
     @Inject
-    public SimpleUserAuthenticator(UserFetcher userFetcher) {
+    public SimpleUserAuthenticator(UserFetcher userFetcher, AuthenticationConfig authenticationConfig, MetricRegistry metricRegistry) {
         requireNonNull(userFetcher, "userFetcher must be defined.");
+        requireNonNull(authenticationConfig, "authenticationConfig must be defined.");
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
         this.userFetcher = userFetcher;
+        this.verifiedCredentials = new ExpiringCache<>(authenticationConfig.cacheSize(), authenticationConfig.cacheTtl(), TimeUnit.MILLISECONDS);
+        metricRegistry.cache("authentication.cache", verifiedCredentials);
     }
 
     @Override
@@ -40,8 +80,70 @@ public class SimpleUserAuthenticator implements UserAuthenticator<SimpleCredenti
         if (credentials == null) {
             throw new IllegalArgumentException("credentials must be defined.");
         }
+        byte[] digest = digest(credentials.getPassword());
+        VerifiedCredential verifiedCredential = verifiedCredentials.get(credentials.getUsername());
+        if (verifiedCredential != null && MessageDigest.isEqual(verifiedCredential.digest, digest)) {
+            return verifiedCredential.user;
+        }
+        long generation = verifiedCredentials.generation();
         User user = userFetcher.getUserByUsername(credentials.getUsername());
-        return (user != null && user.getPassword().equals(credentials.getPassword())) ? user : null;
+        if (user != null && user.getPassword().equals(credentials.getPassword())) {
+            verifiedCredentials.put(credentials.getUsername(), new VerifiedCredential(digest, user), generation);
+            return user;
+        }
+        return null;
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String eventType = event.getEventType();
+        if (Event.USER_UPDATE_REQUEST.equals(eventType)) {
+            invalidateUser(event);
+            return Try.success(true);
+        } else if (Event.ORGANISATION_CHANGE_ADMIN_REQUEST.equals(eventType)) {
+            verifiedCredentials.invalidateAll();
+            return Try.success(true);
+        }
+        return Try.success(false);
+    }
+
+    @Override
+    public void onReply(Event request, Event reply) {
+        if (Event.USER_UPDATE_REQUEST.equals(request.getEventType())) {
+            invalidateUser(request);
+        }
+    }
+
+    private void invalidateUser(Event event) {
+        Map<String, String> custom = event.getCustom();
+        String userIdentifier = custom == null ? null : custom.get(Event.REQUESTER_ID_CUSTOM_HEADER);
+        if (isNotBlank(userIdentifier)) {
+            int removed = verifiedCredentials.invalidateIf((username, verified) -> userIdentifier.equals(verified.user.getIdentifier()));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Invalidate {} verified credential(s) of user '{}'.", removed, userIdentifier);
+            }
+        } else {
+            verifiedCredentials.invalidateAll();
+        }
+    }
+
+    private byte[] digest(String password) {
+        MessageDigest messageDigest = localDigest.get();
+        messageDigest.reset();
+        return messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class VerifiedCredential {
+
+        private final byte[] digest;
+
+        private final User user;
+
+        VerifiedCredential(byte[] digest, User user) {
+            this.digest = digest;
+            this.user = user;
+        }
     }
 
 }
@@ -0,0 +1,162 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.authentification;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import io.kodokojo.api.endpoint.UserAuthenticator;
+import io.kodokojo.commons.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Issue and verify short lived bearer tokens signed with HMAC-SHA256.
+ * A token carry all the information required to build the requester, so its verification don't require any repository access.
+ */
+public class TokenUserAuthenticator implements UserAuthenticator<TokenCredential> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenUserAuthenticator.class);
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Gson gson = new GsonBuilder().create();
+
+    private final ThreadLocal<Mac> localMac;
+
+    private final long ttlInSeconds;
+
+    public TokenUserAuthenticator(byte[] secret, long ttl, TimeUnit timeUnit) {
+        requireNonNull(secret, "secret must be defined.");
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        if (secret.length == 0) {
+            throw new IllegalArgumentException("secret must be defined.");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be greater than 0.");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.localMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException("Unable to create a " + MAC_ALGORITHM + " Mac.", e);
+            }
+        });
+        this.ttlInSeconds = Math.max(1, timeUnit.toSeconds(ttl));
+    }
+
+    public long getTtlInSeconds() {
+        return ttlInSeconds;
+    }
+
+    public String createToken(User user) {
+        requireNonNull(user, "user must be defined.");
+        TokenPayload payload = new TokenPayload();
+        payload.sub = user.getIdentifier();
+        payload.usr = user.getUsername();
+        payload.name = user.getName();
+        payload.email = user.getEmail();
+        payload.org = new HashSet<>(user.getOrganisationIds());
+        payload.root = user.isRoot();
+        payload.exp = now() + ttlInSeconds;
+        String encodedPayload = ENCODER.encodeToString(gson.toJson(payload).getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    @Override
+    public User authenticate(TokenCredential credentials) {
+        if (credentials == null) {
+            throw new IllegalArgumentException("credentials must be defined.");
+        }
+        String token = credentials.getToken();
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator == token.length() - 1) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                LOGGER.debug("Receive a token with an invalid signature.");
+                return null;
+            }
+            TokenPayload payload = gson.fromJson(new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8), TokenPayload.class);
+            if (payload == null || isBlank(payload.sub) || isBlank(payload.usr)) {
+                return null;
+            }
+            if (payload.exp <= now()) {
+                LOGGER.debug("Receive an expired token for user '{}'.", payload.usr);
+                return null;
+            }
+            Set<String> organisationIds = payload.org == null ? new HashSet<>() : payload.org;
+            return new User(payload.sub, organisationIds, payload.name, payload.usr, payload.email, "", "", payload.root);
+        } catch (IllegalArgumentException | JsonParseException e) {
+            LOGGER.debug("Receive a malformed token.", e);
+            return null;
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        Mac mac = localMac.get();
+        return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long now() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private static class TokenPayload {
+
+        private String sub;
+
+        private String usr;
+
+        private String name;
+
+        private String email;
+
+        private Set<String> org;
+
+        private boolean root;
+
+        private long exp;
+
+    }
+
+}
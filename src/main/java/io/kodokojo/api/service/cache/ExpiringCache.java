@@ -0,0 +1,227 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A size bounded cache which expire its entries after a fixed time to live.
+ * When the cache is full, the least recently used entry is evicted.
+ * <p>
+ * Each invalidation start a new generation of the cache. A value computed from a state read before an invalidation
+ * may be put with {@link #put(Object, Object, long)} so it is discarded instead of being cached after the invalidation.
+ * </p>
+ *
+ * @param <K> Type of key.
+ * @param <V> Type of value.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+
+    private final long ttlInNanos;
+
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    //  Guarded by entries.
+    private long generation;
+
+    public ExpiringCache(int maxSize, long ttl, TimeUnit timeUnit) {
+        this(maxSize, ttl, timeUnit, System::nanoTime);
+    }
+
+    ExpiringCache(int maxSize, long ttl, TimeUnit timeUnit, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0.");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be greater than 0.");
+        }
+        requireNonNull(timeUnit, "timeUnit must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        this.maxSize = maxSize;
+        this.ttlInNanos = timeUnit.toNanos(ttl);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean remove = size() > ExpiringCache.this.maxSize;
+                if (remove) {
+                    evictionCount.increment();
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Lookup a value.
+     * @param key The key of value to lookup.
+     * @return The value if present and not expired, <code>null</code> else.
+     */
+    public V get(K key) {
+        requireNonNull(key, "key must be defined.");
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isExpired(now)) {
+                    entries.remove(key);
+                    evictionCount.increment();
+                } else {
+                    hitCount.increment();
+                    return entry.value;
+                }
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(value, "value must be defined.");
+        Entry<V> entry = new Entry<>(value, clock.getAsLong() + ttlInNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Put a value only if the cache hasn't been invalidated since given generation.
+     * @param key The key of the value.
+     * @param value The value to cache.
+     * @param expectedGeneration The generation read with {@link #generation()} before computing the value.
+     * @return <code>true</code> if the value had been put.
+     */
+    public boolean put(K key, V value, long expectedGeneration) {
+        requireNonNull(key, "key must be defined.");
+        requireNonNull(value, "value must be defined.");
+        Entry<V> entry = new Entry<>(value, clock.getAsLong() + ttlInNanos);
+        synchronized (entries) {
+            if (generation != expectedGeneration) {
+                return false;
+            }
+            entries.put(key, entry);
+        }
+        return true;
+    }
+
+    /**
+     * @return The current generation, changed by each invalidation.
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    public void invalidate(K key) {
+        requireNonNull(key, "key must be defined.");
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Remove all entries which match given predicate.
+     * @param predicate Predicate which receive the key and the value of each entry.
+     * @return The number of entries removed.
+     */
+    public int invalidateIf(BiPredicate<K, V> predicate) {
+        requireNonNull(predicate, "predicate must be defined.");
+        int removed = 0;
+        synchronized (entries) {
+            generation++;
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> current = iterator.next();
+                if (predicate.test(current.getKey(), current.getValue().value)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double hitRatio() {
+        long hits = hitCount();
+        long total = hits + missCount();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expireAt >= 0;
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Base of the decorators of fetchers, which route each lookup by identifier through a {@link FetcherLookup}.
+ * <p>
+ * Decorators implement explicitly each method of their fetcher interface, so a change of the interface break the
+ * build instead of bypassing the decorator.
+ * </p>
+ */
+abstract class FetcherDecorator<T> {
+
+    protected final T delegate;
+
+    private final FetcherLookup fetcherLookup;
+
+    FetcherDecorator(T delegate, FetcherLookup fetcherLookup) {
+        requireNonNull(delegate, "delegate must be defined.");
+        requireNonNull(fetcherLookup, "fetcherLookup must be defined.");
+        this.delegate = delegate;
+        this.fetcherLookup = fetcherLookup;
+    }
+
+    protected final <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader) {
+        if (identifier == null) {
+            return loader.apply(null);
+        }
+        return fetcherLookup.lookup(method, identifier, loader);
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import java.util.function.Function;
+
+/**
+ * Strategy of a fetcher decorator, applied to each lookup by a single identifier.
+ */
+interface FetcherLookup {
+
+    /**
+     * @param method The method of the fetcher which is called.
+     * @param identifier The identifier to look up, never <code>null</code>.
+     * @param loader Call the decorated fetcher.
+     * @return The entity to return to the caller.
+     */
+    <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader);
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+
+/**
+ * Lookups by a single identifier of the fetchers, as seen by the decorators of those fetchers.
+ */
+enum FetcherMethod {
+
+    USER_BY_USERNAME(UserFetcher.class),
+
+    USER_BY_IDENTIFIER(UserFetcher.class),
+
+    PROJECT_CONFIGURATION_BY_ID(ProjectFetcher.class),
+
+    PROJECT_BY_IDENTIFIER(ProjectFetcher.class),
+
+    PROJECT_ID_BY_PROJECT_CONFIGURATION_ID(ProjectFetcher.class),
+
+    ORGANISATION_BY_ID(OrganisationFetcher.class);
+
+    private final Class<?> fetcherClass;
+
+    FetcherMethod(Class<?> fetcherClass) {
+        this.fetcherClass = fetcherClass;
+    }
+
+    Class<?> getFetcherClass() {
+        return fetcherClass;
+    }
+
+    /**
+     * @return A key which identify the lookup of given identifier by this method.
+     */
+    String keyOf(String identifier) {
+        return name() + ':' + identifier;
+    }
+
+}
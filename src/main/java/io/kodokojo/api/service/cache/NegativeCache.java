@@ -0,0 +1,113 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.api.service.ReplyListener;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import javaslang.control.Try;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Remember for a short time identifiers which don't match any entity, so unknown identifiers sent by scanners
+ * or stale clients are answered without a lookup in the repository.
+ * <p>
+ * Misses of a kind of entity are forgotten as soon as a creation of this kind of entity goes through the {@link EventBus},
+ * and again when the creation is replied, as a lookup may miss the entity while the backend create it. A miss read
+ * before a creation is never remembered after it.
+ */
+public class NegativeCache implements EventBus.EventListener, ReplyListener {
+
+    private final ExpiringCache<String, FetcherMethod> misses;
+
+    private final FetcherLookup rememberMisses = new RememberMisses();
+
+    public NegativeCache(int size, long ttl, TimeUnit timeUnit, MetricRegistry metricRegistry) {
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        this.misses = new ExpiringCache<>(size, ttl, timeUnit);
+        metricRegistry.cache("repository.negativeCache", misses);
+    }
+
+    /**
+     * Remember misses of each lookup by identifier of given fetcher.
+     */
+    public UserFetcher decorate(UserFetcher delegate) {
+        return new UserFetcherDecorator(delegate, rememberMisses);
+    }
+
+    public ProjectFetcher decorate(ProjectFetcher delegate) {
+        return new ProjectFetcherDecorator(delegate, rememberMisses);
+    }
+
+    public OrganisationFetcher decorate(OrganisationFetcher delegate) {
+        return new OrganisationFetcherDecorator(delegate, rememberMisses);
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String eventType = event.getEventType();
+        if (Event.USER_CREATION_REQUEST.equals(eventType)) {
+            invalidate(UserFetcher.class);
+        } else if (Event.ORGANISATION_CREATE_REQUEST.equals(eventType)) {
+            invalidate(OrganisationFetcher.class);
+        } else if (Event.PROJECTCONFIG_CREATION_REQUEST.equals(eventType) ||
+                Event.PROJECTCONFIG_START_REQUEST.equals(eventType) ||
+                Event.PROJECTCONFIG_STARTED.equals(eventType)) {
+            invalidate(ProjectFetcher.class);
+        } else {
+            return Try.success(false);
+        }
+        return Try.success(true);
+    }
+
+    @Override
+    public void onReply(Event request, Event reply) {
+        receive(request);
+    }
+
+    private void invalidate(Class<?> fetcherClass) {
+        misses.invalidateIf((key, method) -> method.getFetcherClass() == fetcherClass);
+    }
+
+    private class RememberMisses implements FetcherLookup {
+
+        @Override
+        public <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader) {
+            String key = method.keyOf(identifier);
+            if (misses.get(key) != null) {
+                return null;
+            }
+            long generation = misses.generation();
+            V res = loader.apply(identifier);
+            if (res == null) {
+                misses.put(key, method, generation);
+            }
+            return res;
+        }
+    }
+
+}
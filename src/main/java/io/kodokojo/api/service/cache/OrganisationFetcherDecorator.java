@@ -0,0 +1,34 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+
+class OrganisationFetcherDecorator extends FetcherDecorator<OrganisationFetcher> implements OrganisationFetcher {
+
+    OrganisationFetcherDecorator(OrganisationFetcher delegate, FetcherLookup fetcherLookup) {
+        super(delegate, fetcherLookup);
+    }
+
+    @Override
+    public Organisation getOrganisationById(String organisationId) {
+        return lookup(FetcherMethod.ORGANISATION_BY_ID, organisationId, delegate::getOrganisationById);
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+
+class ProjectFetcherDecorator extends FetcherDecorator<ProjectFetcher> implements ProjectFetcher {
+
+    ProjectFetcherDecorator(ProjectFetcher delegate, FetcherLookup fetcherLookup) {
+        super(delegate, fetcherLookup);
+    }
+
+    @Override
+    public ProjectConfiguration getProjectConfigurationById(String projectConfigurationId) {
+        return lookup(FetcherMethod.PROJECT_CONFIGURATION_BY_ID, projectConfigurationId, delegate::getProjectConfigurationById);
+    }
+
+    @Override
+    public Project getProjectByIdentifier(String identifier) {
+        return lookup(FetcherMethod.PROJECT_BY_IDENTIFIER, identifier, delegate::getProjectByIdentifier);
+    }
+
+    @Override
+    public String getProjectIdByProjectConfigurationId(String projectConfigurationId) {
+        return lookup(FetcherMethod.PROJECT_ID_BY_PROJECT_CONFIGURATION_ID, projectConfigurationId, delegate::getProjectIdByProjectConfigurationId);
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.api.service.ReplyListener;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import javaslang.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+
+/**
+ * Read through caches in front of the fetchers of users, project configurations and organisations.
+ * <p>
+ * Entries are invalidated when an event which mutate the matching entity goes through the {@link EventBus}, and again
+ * when the reply of this request is received, once the backend applied the change. A lookup started before an
+ * invalidation never cache its result. Requests sent without waiting for a reply are only invalidated when sent, so the
+ * time to live bound how long a stale entity may be served after them.
+ */
+public class RepositoryCache implements EventBus.EventListener, ReplyListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryCache.class);
+
+    private final ExpiringCache<String, User> users;
+
+    private final ExpiringCache<String, ProjectConfiguration> projectConfigurations;
+
+    private final ExpiringCache<String, Organisation> organisations;
+
+    public RepositoryCache(int userSize, int projectConfigurationSize, int organisationSize, long ttl, TimeUnit timeUnit, MetricRegistry metricRegistry) {
+        requireNonNull(metricRegistry, "metricRegistry must be defined.");
+        this.users = new ExpiringCache<>(userSize, ttl, timeUnit);
+        this.projectConfigurations = new ExpiringCache<>(projectConfigurationSize, ttl, timeUnit);
+        this.organisations = new ExpiringCache<>(organisationSize, ttl, timeUnit);
+        metricRegistry.cache("repository.cache.user", users);
+        metricRegistry.cache("repository.cache.projectConfiguration", projectConfigurations);
+        metricRegistry.cache("repository.cache.organisation", organisations);
+    }
+
+    public UserFetcher decorate(UserFetcher userFetcher) {
+        return new UserFetcherDecorator(userFetcher, new ReadThrough());
+    }
+
+    public ProjectFetcher decorate(ProjectFetcher projectFetcher) {
+        return new ProjectFetcherDecorator(projectFetcher, new ReadThrough());
+    }
+
+    public OrganisationFetcher decorate(OrganisationFetcher organisationFetcher) {
+        return new OrganisationFetcherDecorator(organisationFetcher, new ReadThrough());
+    }
+
+    @Override
+    public Try<Boolean> receive(Event event) {
+        requireNonNull(event, "event must be defined.");
+        String eventType = event.getEventType();
+        Map<String, String> custom = event.getCustom();
+        if (Event.USER_UPDATE_REQUEST.equals(eventType)) {
+            invalidate(users, custom == null ? null : custom.get(Event.REQUESTER_ID_CUSTOM_HEADER));
+        } else if (Event.ORGANISATION_CHANGE_ADMIN_REQUEST.equals(eventType)) {
+            //  Organisation identifiers of users change too.
+            organisations.invalidateAll();
+            users.invalidateAll();
+        } else if (Event.PROJECTCONFIG_CREATION_REQUEST.equals(eventType)) {
+            organisations.invalidateAll();
+        } else if (Event.PROJECTCONFIG_CHANGE_USER_REQUEST.equals(eventType)) {
+            ProjectConfigurationChangeUserRequest changeUserRequest = event.getPayload(ProjectConfigurationChangeUserRequest.class);
+            String projectConfigurationIdentifier = changeUserRequest == null ? null : changeUserRequest.getProjectConfigurationId();
+            invalidate(projectConfigurations, projectConfigurationIdentifier);
+        } else if (Event.PROJECTCONFIG_STARTED.equals(eventType) || Event.BRICK_STATE_UPDATE.equals(eventType)) {
+            invalidate(projectConfigurations, custom == null ? null : custom.get(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER));
+        } else {
+            return Try.success(false);
+        }
+        return Try.success(true);
+    }
+
+    @Override
+    public void onReply(Event request, Event reply) {
+        receive(request);
+    }
+
+    private static void invalidate(ExpiringCache<String, ?> cache, String identifier) {
+        if (isNotBlank(identifier)) {
+            cache.invalidate(identifier);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Invalidate cached entity '{}'.", identifier);
+            }
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> ExpiringCache<String, V> cacheOf(FetcherMethod method) {
+        switch (method) {
+            case USER_BY_IDENTIFIER:
+                return (ExpiringCache<String, V>) users;
+            case PROJECT_CONFIGURATION_BY_ID:
+                return (ExpiringCache<String, V>) projectConfigurations;
+            case ORGANISATION_BY_ID:
+                return (ExpiringCache<String, V>) organisations;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Serve lookups of entities by identifier from their cache and delegate any other lookup as is.
+     */
+    private class ReadThrough implements FetcherLookup {
+
+        @Override
+        public <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader) {
+            ExpiringCache<String, V> cache = cacheOf(method);
+            if (cache == null) {
+                return loader.apply(identifier);
+            }
+            V value = cache.get(identifier);
+            if (value == null) {
+                long generation = cache.generation();
+                value = loader.apply(identifier);
+                if (value != null) {
+                    cache.put(identifier, value, generation);
+                }
+            }
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Memoize entities fetched by the thread which handle an HTTP request, so a same entity is loaded at most once
+ * per request. A missing entity isn't memoized, as a request may wait for its creation.
+ * <p>
+ * A scope is opened and closed by the thread which handle the request; outside of a scope, fetchers are called as is.
+ */
+public final class RequestScope {
+
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private static final FetcherLookup MEMOIZE = new Memoize();
+
+    private final Map<String, Object> entities = new HashMap<>();
+
+    private int fetchCount;
+
+    private int memoizedCount;
+
+    private RequestScope() {
+        //  Only opened by open().
+    }
+
+    public static RequestScope open() {
+        RequestScope scope = new RequestScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    public int getFetchCount() {
+        return fetchCount;
+    }
+
+    public int getMemoizedCount() {
+        return memoizedCount;
+    }
+
+    /**
+     * Memoize results of each lookup by identifier of given fetcher.
+     * @param delegate The fetcher to call when entity isn't already loaded by current request.
+     * @return A fetcher which memoize the results of delegate in the current request scope.
+     */
+    public static UserFetcher memoize(UserFetcher delegate) {
+        return new UserFetcherDecorator(delegate, MEMOIZE);
+    }
+
+    public static ProjectFetcher memoize(ProjectFetcher delegate) {
+        return new ProjectFetcherDecorator(delegate, MEMOIZE);
+    }
+
+    public static OrganisationFetcher memoize(OrganisationFetcher delegate) {
+        return new OrganisationFetcherDecorator(delegate, MEMOIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V fetch(String key, String identifier, Function<String, V> loader) {
+        V res = (V) entities.get(key);
+        if (res == null) {
+            fetchCount++;
+            res = loader.apply(identifier);
+            if (res != null) {
+                entities.put(key, res);
+            }
+        } else {
+            memoizedCount++;
+        }
+        return res;
+    }
+
+    private static class Memoize implements FetcherLookup {
+
+        @Override
+        public <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader) {
+            RequestScope scope = CURRENT.get();
+            if (scope != null) {
+                return scope.fetch(method.keyOf(identifier), identifier, loader);
+            }
+            return loader.apply(identifier);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesce concurrent identical lookups: while a lookup is in flight, callers asking for the same identifier
+ * wait for its result instead of calling the repository again.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final FetcherLookup coalesce = new Coalesce();
+
+    /**
+     * Coalesce concurrent lookups by identifier of given fetcher.
+     */
+    public UserFetcher coalesce(UserFetcher delegate) {
+        return new UserFetcherDecorator(delegate, coalesce);
+    }
+
+    public ProjectFetcher coalesce(ProjectFetcher delegate) {
+        return new ProjectFetcherDecorator(delegate, coalesce);
+    }
+
+    public OrganisationFetcher coalesce(OrganisationFetcher delegate) {
+        return new OrganisationFetcherDecorator(delegate, coalesce);
+    }
+
+    public long coalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V lookup(String key, String identifier, Function<String, V> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> current = inFlight.putIfAbsent(key, future);
+        if (current != null) {
+            coalescedCount.increment();
+            try {
+                return (V) current.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            V res = loader.apply(identifier);
+            future.complete(res);
+            return res;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private class Coalesce implements FetcherLookup {
+
+        @Override
+        public <V> V lookup(FetcherMethod method, String identifier, Function<String, V> loader) {
+            return SingleFlight.this.lookup(method.keyOf(identifier), identifier, loader);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.metric;
+
+import io.kodokojo.api.service.cache.ExpiringCache;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Hold named counters and gauges which describe the current behaviour of the API.
+ */
+public class MetricRegistry {
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Get or create a counter.
+     * @param name The name of the counter.
+     * @return The counter registered with given name.
+     */
+    public LongAdder counter(String name) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> gauge) {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("name must be defined.");
+        }
+        requireNonNull(gauge, "gauge must be defined.");
+        gauges.put(name, gauge);
+    }
+
+    public void cache(String name, ExpiringCache<?, ?> cache) {
+        requireNonNull(cache, "cache must be defined.");
+        gauge(name + ".hit", cache::hitCount);
+        gauge(name + ".miss", cache::missCount);
+        gauge(name + ".hitRatio", cache::hitRatio);
+        gauge(name + ".eviction", cache::evictionCount);
+        gauge(name + ".size", cache::size);
+    }
+
+    public SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> res = new TreeMap<>();
+        counters.forEach((name, counter) -> res.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> res.put(name, gauge.get()));
+        return res;
+    }
+
+}
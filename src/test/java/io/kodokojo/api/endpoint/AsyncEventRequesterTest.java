@@ -0,0 +1,320 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.CircuitBreaker;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.AdditionalMatchers.leq;
+import static org.mockito.Mockito.*;
+
+public class AsyncEventRequesterTest {
+
+    private EventBus eventBus;
+
+    private Event reply;
+
+    private CountDownLatch replyLatch;
+
+    private AsyncEventRequester asyncEventRequester;
+
+    @Before
+    public void setup() throws Exception {
+        eventBus = mock(EventBus.class);
+        reply = mock(Event.class);
+        when(reply.getPayload()).thenReturn("42");
+        replyLatch = new CountDownLatch(1);
+        when(eventBus.request(any(Event.class), anyInt(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            replyLatch.await(5, TimeUnit.SECONDS);
+            return reply;
+        });
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(1));
+        asyncEventRequester = new AsyncEventRequester(eventBus, executor,
+                Collections.singletonMap(Event.USER_CREATION_REQUEST, new EventRequestPolicy("userCreation", 1000, 4, new CircuitBreaker("userCreation", 2, 1, 1, TimeUnit.MINUTES))),
+                new EventRequestPolicy("default", 2000, 1, new CircuitBreaker("default", 2, 1, 1, TimeUnit.MINUTES)));
+    }
+
+    @After
+    public void tearDown() {
+        replyLatch.countDown();
+        asyncEventRequester.stop();
+    }
+
+    @Test
+    public void handle_reply_synchronously_when_request_is_not_deferrable() throws Exception {
+        replyLatch.countDown();
+        HttpServletRequest raw = mock(HttpServletRequest.class);
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+
+        Object result = asyncEventRequester.request(request, mock(Response.class), Event.USER_CREATION_REQUEST, eventBuilder(), null, Event::getPayload);
+
+        assertThat(result).isEqualTo("42");
+        verify(raw, never()).startAsync();
+    }
+
+    @Test
+    public void notify_reply_listeners_before_reply_is_handled() throws Exception {
+        replyLatch.countDown();
+        List<Event> notified = new ArrayList<>();
+        asyncEventRequester.addReplyListener((request, reply) -> notified.add(reply));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(mock(HttpServletRequest.class));
+
+        Object result = asyncEventRequester.request(request, mock(Response.class), Event.USER_CREATION_REQUEST, eventBuilder(), null, event -> notified.size());
+
+        assertThat(result).isEqualTo(1);
+        assertThat(notified).containsExactly(reply);
+    }
+
+    @Test
+    public void release_calling_thread_before_reply_is_received() throws Exception {
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        HttpServletRequest raw = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletResponse rawResponse = mock(HttpServletResponse.class);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        when(raw.getAttribute(DeferredResponseFilter.RELEASED_ATTRIBUTE)).thenReturn(released);
+        when(raw.isAsyncSupported()).thenReturn(true);
+        when(raw.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(rawResponse);
+        when(rawResponse.getOutputStream()).thenReturn(new CapturingOutputStream(output));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+        Response response = mock(Response.class);
+
+        Object result = asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, event -> {
+            response.status(201);
+            return event.getPayload();
+        });
+
+        assertThat(result).isEqualTo("");
+        verify(raw).setAttribute(DeferredResponseFilter.DEFERRED_ATTRIBUTE, Boolean.TRUE);
+
+        replyLatch.countDown();
+        released.complete(null);
+
+        verify(asyncContext, timeout(1000)).complete();
+        verify(response).status(201);
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("42");
+    }
+
+    @Test
+    public void halt_handler_write_halt_status_and_body() throws Exception {
+        replyLatch.countDown();
+        HttpServletRequest raw = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletResponse rawResponse = mock(HttpServletResponse.class);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        when(raw.getAttribute(DeferredResponseFilter.RELEASED_ATTRIBUTE)).thenReturn(CompletableFuture.completedFuture(null));
+        when(raw.isAsyncSupported()).thenReturn(true);
+        when(raw.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(rawResponse);
+        when(rawResponse.getOutputStream()).thenReturn(new CapturingOutputStream(output));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+
+        asyncEventRequester.request(request, mock(Response.class), Event.USER_CREATION_REQUEST, eventBuilder(), null, event -> {
+            spark.Spark.halt(409, "Conflict");
+            return "";
+        });
+
+        verify(asyncContext, timeout(1000)).complete();
+        verify(rawResponse).setStatus(409);
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("Conflict");
+    }
+
+    @Test
+    public void reject_request_when_too_many_requests_are_pending() throws Exception {
+        HttpServletRequest raw = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(raw.getAttribute(DeferredResponseFilter.RELEASED_ATTRIBUTE)).thenReturn(new CompletableFuture<Void>());
+        when(raw.isAsyncSupported()).thenReturn(true);
+        when(raw.startAsync()).thenReturn(asyncContext);
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+        Response response = mock(Response.class);
+
+        // One request waiting for its reply, an other queued.
+        asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, Event::getPayload);
+        asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, Event::getPayload);
+
+        try {
+            asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, Event::getPayload);
+            fail("Expected request to be rejected.");
+        } catch (HaltException e) {
+            assertThat(e.statusCode()).isEqualTo(503);
+        }
+        verify(response).header("Retry-After", "1");
+        verify(raw, times(2)).startAsync();
+        verify(asyncContext, never()).complete();
+        assertThat(asyncEventRequester.rejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void reject_request_when_bulkhead_of_event_type_is_full() throws Exception {
+        HttpServletRequest raw = mock(HttpServletRequest.class);
+        when(raw.getAttribute(DeferredResponseFilter.RELEASED_ATTRIBUTE)).thenReturn(new CompletableFuture<Void>());
+        when(raw.isAsyncSupported()).thenReturn(true);
+        when(raw.startAsync()).thenReturn(mock(AsyncContext.class));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(raw);
+        Response response = mock(Response.class);
+
+        asyncEventRequester.request(request, response, Event.USER_UPDATE_REQUEST, eventBuilder(), null, Event::getPayload);
+        try {
+            asyncEventRequester.request(request, response, Event.USER_UPDATE_REQUEST, eventBuilder(), null, Event::getPayload);
+            fail("Expected request to be rejected by bulkhead.");
+        } catch (HaltException e) {
+            assertThat(e.statusCode()).isEqualTo(503);
+        }
+        verify(response).header("Retry-After", "1");
+        EventRequestPolicy policy = asyncEventRequester.policyOf(Event.USER_UPDATE_REQUEST);
+        assertThat(policy.rejectedCount()).isEqualTo(1);
+        assertThat(policy.inUse()).isEqualTo(1);
+        assertThat(asyncEventRequester.policyOf(Event.USER_CREATION_REQUEST).inUse()).isEqualTo(0);
+
+        replyLatch.countDown();
+        long end = System.currentTimeMillis() + 1000;
+        while (policy.inUse() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertThat(policy.inUse()).isEqualTo(0);
+    }
+
+    @Test
+    public void fail_fast_once_circuit_of_event_type_is_open() throws Exception {
+        doReturn(null).when(eventBus).request(any(Event.class), anyInt(), any(TimeUnit.class));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(mock(HttpServletRequest.class));
+        Response response = mock(Response.class);
+
+        asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, reply -> "timeout");
+        asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, reply -> "timeout");
+        try {
+            asyncEventRequester.request(request, response, Event.USER_CREATION_REQUEST, eventBuilder(), null, reply -> "timeout");
+            fail("Expected request to fail fast.");
+        } catch (HaltException e) {
+            assertThat(e.statusCode()).isEqualTo(503);
+        }
+
+        verify(eventBus, times(2)).request(any(Event.class), anyInt(), any(TimeUnit.class));
+        verify(response).header(eq("Retry-After"), anyString());
+        assertThat(asyncEventRequester.policyOf(Event.USER_CREATION_REQUEST).getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(asyncEventRequester.policyOf(Event.USER_UPDATE_REQUEST).getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void add_absolute_deadline_of_event_type_to_requested_event() throws Exception {
+        replyLatch.countDown();
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(mock(HttpServletRequest.class));
+        EventBuilder eventBuilder = eventBuilder();
+        long before = System.currentTimeMillis();
+
+        asyncEventRequester.request(request, mock(Response.class), Event.USER_CREATION_REQUEST, eventBuilder, null, Event::getPayload);
+
+        verify(eventBuilder).setEventType(Event.USER_CREATION_REQUEST);
+        ArgumentCaptor<String> deadline = ArgumentCaptor.forClass(String.class);
+        verify(eventBuilder).addCustomHeader(eq(AsyncEventRequester.DEADLINE_CUSTOM_HEADER), deadline.capture());
+        assertThat(Long.parseLong(deadline.getValue())).isBetween(before + 1000, System.currentTimeMillis() + 1000);
+        verify(eventBus).request(any(Event.class), leq(1000), eq(TimeUnit.MILLISECONDS));
+        assertThat(asyncEventRequester.timeoutOf(Event.USER_UPDATE_REQUEST)).isEqualTo(2000);
+    }
+
+    @Test
+    public void discard_reply_received_after_deadline() throws Exception {
+        Event lateReply = mock(Event.class);
+        doAnswer(invocation -> {
+            Thread.sleep(1100);
+            return lateReply;
+        }).when(eventBus).request(any(Event.class), anyInt(), any(TimeUnit.class));
+        Request request = mock(Request.class);
+        when(request.raw()).thenReturn(mock(HttpServletRequest.class));
+
+        Object result = asyncEventRequester.request(request, mock(Response.class), Event.USER_CREATION_REQUEST, eventBuilder(), null, reply -> reply == null ? "timeout" : reply.getPayload());
+
+        assertThat(result).isEqualTo("timeout");
+        verify(lateReply, never()).getPayload();
+        assertThat(asyncEventRequester.expiredCount()).isEqualTo(1);
+    }
+
+    private static EventBuilder eventBuilder() {
+        EventBuilder eventBuilder = mock(EventBuilder.class);
+        when(eventBuilder.setEventType(anyString())).thenReturn(eventBuilder);
+        when(eventBuilder.addCustomHeader(anyString(), anyString())).thenReturn(eventBuilder);
+        when(eventBuilder.build()).thenReturn(mock(Event.class));
+        return eventBuilder;
+    }
+
+    private static class CapturingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream output;
+
+        CapturingOutputStream(ByteArrayOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            // Nothing to do.
+        }
+
+        @Override
+        public void write(int b) {
+            output.write(b);
+        }
+    }
+
+}
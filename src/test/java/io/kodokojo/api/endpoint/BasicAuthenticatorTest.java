@@ -0,0 +1,89 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.authentification.SimpleCredential;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BasicAuthenticatorTest {
+
+    @Test
+    public void extract_username_and_password() {
+        SimpleCredential credential = BasicAuthenticator.extractCredential(basic("jpthiery:jpascal"));
+
+        assertThat(credential).isNotNull();
+        assertThat(credential.getUsername()).isEqualTo("jpthiery");
+        assertThat(credential.getPassword()).isEqualTo("jpascal");
+    }
+
+    @Test
+    public void decoded_credential_is_not_kept_in_thread_buffer() throws Exception {
+        assertThat(BasicAuthenticator.extractCredential(basic("jpthiery:jpascal"))).isNotNull();
+
+        Field localBuffer = BasicAuthenticator.class.getDeclaredField("LOCAL_BUFFER");
+        localBuffer.setAccessible(true);
+        byte[] buffer = ((ThreadLocal<byte[]>) localBuffer.get(null)).get();
+        assertThat(buffer).containsOnly((byte) 0);
+    }
+
+    @Test
+    public void password_may_contain_colon() {
+        SimpleCredential credential = BasicAuthenticator.extractCredential(basic("jpthiery:jp:asc:al"));
+
+        assertThat(credential).isNotNull();
+        assertThat(credential.getUsername()).isEqualTo("jpthiery");
+        assertThat(credential.getPassword()).isEqualTo("jp:asc:al");
+    }
+
+    @Test
+    public void credentials_are_decoded_as_utf8() {
+        SimpleCredential credential = BasicAuthenticator.extractCredential(basic("jérôme:pässwörd€"));
+
+        assertThat(credential).isNotNull();
+        assertThat(credential.getUsername()).isEqualTo("jérôme");
+        assertThat(credential.getPassword()).isEqualTo("pässwörd€");
+    }
+
+    @Test
+    public void every_padding_length_is_decoded() {
+        assertThat(BasicAuthenticator.extractCredential(basic("a:b")).getPassword()).isEqualTo("b");
+        assertThat(BasicAuthenticator.extractCredential(basic("a:bc")).getPassword()).isEqualTo("bc");
+        assertThat(BasicAuthenticator.extractCredential(basic("a:bcd")).getPassword()).isEqualTo("bcd");
+    }
+
+    @Test
+    public void invalid_header_are_rejected() {
+        assertThat(BasicAuthenticator.extractCredential((String) null)).isNull();
+        assertThat(BasicAuthenticator.extractCredential("Bearer abcdef")).isNull();
+        assertThat(BasicAuthenticator.extractCredential("Basic !!!!")).isNull();
+        assertThat(BasicAuthenticator.extractCredential(basic("jpthiery"))).isNull();
+        assertThat(BasicAuthenticator.extractCredential(basic("jpthiery:"))).isNull();
+        assertThat(BasicAuthenticator.extractCredential(basic(":jpascal"))).isNull();
+    }
+
+    private static String basic(String userAndPassword) {
+        return "Basic " + Base64.getEncoder().encodeToString(userAndPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import io.kodokojo.api.service.authentification.AuthenticationThrottler;
+import io.kodokojo.api.service.authentification.SimpleCredential;
+import io.kodokojo.api.service.authentification.TokenUserAuthenticator;
+import io.kodokojo.commons.config.VersionConfig;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class HttpEndpointTest {
+
+    private User user;
+
+    private UserFetcher userFetcher;
+
+    private TokenUserAuthenticator tokenUserAuthenticator;
+
+    private AuthenticationThrottler authenticationThrottler;
+
+    private HttpEndpoint httpEndpoint;
+
+    @Before
+    public void setup() {
+        user = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+        userFetcher = mock(UserFetcher.class);
+        when(userFetcher.getUserByUsername("jpthiery")).thenReturn(user);
+        UserAuthenticator<SimpleCredential> userAuthenticator = credential -> {
+            User fetched = userFetcher.getUserByUsername(credential.getUsername());
+            return fetched != null && fetched.getPassword().equals(credential.getPassword()) ? fetched : null;
+        };
+        tokenUserAuthenticator = new TokenUserAuthenticator("secret".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.MINUTES);
+        authenticationThrottler = new AuthenticationThrottler(1024, 2, 5, 1, TimeUnit.MINUTES);
+        httpEndpoint = new HttpEndpoint(userAuthenticator, tokenUserAuthenticator, authenticationThrottler, mock(EventBus.class), mock(EventBuilderFactory.class), Collections.emptySet(), mock(VersionConfig.class));
+    }
+
+    @Test
+    public void requester_is_authenticated_only_once_per_request() throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("jpthiery:jpascal".getBytes(StandardCharsets.UTF_8));
+        Request request = mockRequest("GET", AbstractSparkEndpoint.BASE_API + "/user", authorization);
+
+        httpEndpoint.securityCheck(request, mock(Response.class));
+        User requester = httpEndpoint.getRequester(request);
+
+        assertThat(requester).isEqualTo(user);
+        verify(userFetcher, times(1)).getUserByUsername("jpthiery");
+    }
+
+    @Test
+    public void bearer_token_is_verified_without_user_lookup() throws Exception {
+        Request request = mockRequest("GET", AbstractSparkEndpoint.BASE_API + "/user", "Bearer " + tokenUserAuthenticator.createToken(user));
+
+        httpEndpoint.securityCheck(request, mock(Response.class));
+        User requester = httpEndpoint.getRequester(request);
+
+        assertThat(requester.getIdentifier()).isEqualTo("1234");
+        assertThat(requester.getOrganisationIds()).containsExactly("5678");
+        verifyZeroInteractions(userFetcher);
+    }
+
+    @Test
+    public void throttled_client_is_rejected_before_any_user_lookup() throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("jpthiery:wrong".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 2; i++) {
+            try {
+                httpEndpoint.securityCheck(mockRequest("GET", AbstractSparkEndpoint.BASE_API + "/user", authorization), mock(Response.class));
+            } catch (HaltException e) {
+                assertThat(e.statusCode()).isEqualTo(401);
+            }
+        }
+        reset(userFetcher);
+        Response response = mock(Response.class);
+
+        try {
+            httpEndpoint.securityCheck(mockRequest("GET", AbstractSparkEndpoint.BASE_API + "/user", authorization), response);
+            fail("Expected a HaltException");
+        } catch (HaltException e) {
+            assertThat(e.statusCode()).isEqualTo(429);
+        }
+        verify(response).header(eq("Retry-After"), anyString());
+        verifyZeroInteractions(userFetcher);
+    }
+
+    @Test
+    public void failed_authentication_on_anonymous_route_is_throttled() throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("jpthiery:wrong".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 2; i++) {
+            Request request = mockRequest("GET", AbstractSparkEndpoint.BASE_API, authorization);
+            httpEndpoint.securityCheck(request, mock(Response.class));
+            assertThat(httpEndpoint.getRequester(request)).isNull();
+        }
+        reset(userFetcher);
+
+        try {
+            httpEndpoint.securityCheck(mockRequest("GET", AbstractSparkEndpoint.BASE_API, authorization), mock(Response.class));
+            fail("Expected a HaltException");
+        } catch (HaltException e) {
+            assertThat(e.statusCode()).isEqualTo(429);
+        }
+        assertThat(authenticationThrottler.failureCount()).isEqualTo(2);
+        verifyZeroInteractions(userFetcher);
+    }
+
+    private static Request mockRequest(String method, String path, String authorization) {
+        Map<String, Object> attributes = new HashMap<>();
+        Request request = mock(Request.class);
+        when(request.requestMethod()).thenReturn(method);
+        when(request.pathInfo()).thenReturn(path);
+        when(request.ip()).thenReturn("10.0.0.1");
+        when(request.headers(BasicAuthenticator.AUTHORIZATION_HEADER_NAME)).thenReturn(authorization);
+        doAnswer(invocation -> attributes.get(invocation.getArguments()[0])).when(request).attribute(anyString());
+        doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(request).attribute(anyString(), any());
+        return request;
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteWhitelistTest {
+
+    @Test
+    public void match_method_and_path() {
+        RouteWhitelist routeWhitelist = new RouteWhitelist(Arrays.asList(
+                new AnonymousRoute("POST", "/api/v1/user"),
+                new AnonymousRoute("POST", "/api/v1/user/[^/]*"),
+                new AnonymousRoute("GET", "/api/v1/doc(/)?.*")
+        ));
+
+        assertThat(routeWhitelist.match("POST", "/api/v1/user")).isTrue();
+        assertThat(routeWhitelist.match("POST", "/api/v1/user/1234")).isTrue();
+        assertThat(routeWhitelist.match("GET", "/api/v1/doc/index.html")).isTrue();
+
+        assertThat(routeWhitelist.match("GET", "/api/v1/user")).isFalse();
+        assertThat(routeWhitelist.match("POST", "/api/v1/user/1234/ssh")).isFalse();
+        assertThat(routeWhitelist.match("DELETE", "/api/v1/user")).isFalse();
+    }
+
+}
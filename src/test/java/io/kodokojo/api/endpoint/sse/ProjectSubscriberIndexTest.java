@@ -0,0 +1,109 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectSubscriberIndexTest {
+
+    private ProjectSubscriberIndex index;
+
+    @Before
+    public void setup() {
+        index = new ProjectSubscriberIndex();
+    }
+
+    @Test
+    public void index_only_connected_members() {
+        index.connect("alice");
+
+        index.load("project", Arrays.asList("alice", "bob"));
+
+        assertThat(index.getSubscribers("project")).containsOnly("alice");
+        assertThat(index.getSubscribers("unknown")).isNull();
+        assertThat(index.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void follow_membership_changes_of_loaded_projects() {
+        index.connect("alice");
+        index.connect("bob");
+        index.load("project", Collections.singletonList("alice"));
+
+        index.addMembers("project", Arrays.asList("bob", "carol"));
+        index.addMembers("other", Collections.singletonList("bob"));
+        assertThat(index.getSubscribers("project")).containsOnly("alice", "bob");
+        assertThat(index.getSubscribers("other")).isNull();
+
+        index.removeMembers("project", Collections.singletonList("alice"));
+        assertThat(index.getSubscribers("project")).containsOnly("bob");
+    }
+
+    @Test
+    public void remove_disconnected_user_from_all_projects() {
+        index.connect("alice");
+        index.connect("bob");
+        index.load("first", Arrays.asList("alice", "bob"));
+        index.load("second", Collections.singletonList("alice"));
+
+        index.disconnect("alice", () -> true);
+
+        assertThat(index.getSubscribers("first")).containsOnly("bob");
+        assertThat(index.getSubscribers("second")).isEmpty();
+
+        index.load("second", Collections.singletonList("alice"));
+        assertThat(index.getSubscribers("second")).isEmpty();
+    }
+
+    @Test
+    public void keep_subscriptions_of_user_reconnected_before_disconnection_is_indexed() {
+        index.connect("alice");
+        index.load("project", Collections.singletonList("alice"));
+
+        index.disconnect("alice", () -> false);
+
+        assertThat(index.getSubscribers("project")).containsOnly("alice");
+        index.load("other", Collections.singletonList("alice"));
+        assertThat(index.getSubscribers("other")).containsOnly("alice");
+    }
+
+    @Test
+    public void keep_membership_changes_when_a_member_connects() {
+        index.connect("alice");
+        index.load("project", Collections.singletonList("alice"));
+        index.connect("bob");
+        index.addMembers("project", Collections.singletonList("bob"));
+
+        index.connect("carol");
+        index.load("project", Arrays.asList("alice", "carol"));
+        assertThat(index.getSubscribers("project")).containsOnly("alice", "bob");
+
+        index.subscribe("project", Arrays.asList("alice", "carol"), "carol");
+        assertThat(index.getSubscribers("project")).containsOnly("alice", "bob", "carol");
+
+        index.subscribe("other", Arrays.asList("alice", "carol"), "carol");
+        assertThat(index.getSubscribers("other")).containsOnly("alice", "carol");
+    }
+
+}
@@ -1,10 +1,19 @@
 package io.kodokojo.api.endpoint.sse;
 
 import org.eclipse.jetty.servlets.EventSource;
+import org.eclipse.jetty.servlets.EventSourceServlet;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -40,4 +49,73 @@ public class SSEEventOutputTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void jetty_emitter_writes_under_its_own_monitor() throws Exception {
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        ServletResponse response = Mockito.mock(ServletResponse.class);
+        ServletOutputStream outputStream = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(asyncContext.getResponse()).thenReturn(response);
+        Mockito.when(response.getOutputStream()).thenReturn(outputStream);
+        CountDownLatch written = new CountDownLatch(2);
+        Mockito.doAnswer(invocation -> {
+            written.countDown();
+            return null;
+        }).when(outputStream).write(Mockito.any(byte[].class));
+        Object emitter = newJettyEmitter(asyncContext);
+
+        //  SSEEventOutput writes encoded frames under the emitter monitor, so they don't interleave with Jetty data
+        //  nor heartbeats. Fails if the Jetty version stops locking the emitter this way.
+        Thread writer = new Thread(() -> {
+            try {
+                ((EventSource.Emitter) emitter).data("data");
+                ((Runnable) emitter).run();
+            } catch (IOException | RuntimeException e) {
+                //  Heartbeat can't be rescheduled without a started servlet.
+            }
+        });
+        synchronized (emitter) {
+            writer.start();
+            assertThat(written.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        }
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.join(5000);
+    }
+
+    @Test
+    public void drop_request_once_opened() throws Exception {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        ServletResponse response = Mockito.mock(ServletResponse.class);
+        ServletOutputStream outputStream = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(request.isAsyncStarted()).thenReturn(true);
+        Mockito.when(request.getAsyncContext()).thenReturn(asyncContext);
+        Mockito.when(asyncContext.getResponse()).thenReturn(response);
+        Mockito.when(response.getOutputStream()).thenReturn(outputStream);
+        SSEEventOutput sseEventOutput = new SSEEventOutput(request);
+
+        sseEventOutput.onOpen(Mockito.mock(EventSource.Emitter.class));
+
+        assertThat(fieldOf(sseEventOutput, "request")).isNull();
+        assertThat(fieldOf(sseEventOutput, "output")).isSameAs(outputStream);
+    }
+
+    private static Object newJettyEmitter(AsyncContext asyncContext) throws ReflectiveOperationException {
+        EventSourceServlet servlet = new EventSourceServlet() {
+            @Override
+            protected EventSource newEventSource(HttpServletRequest request) {
+                return null;
+            }
+        };
+        Class<?> emitterClass = Class.forName(EventSourceServlet.class.getName() + "$EventSourceEmitter");
+        Constructor<?> constructor = emitterClass.getDeclaredConstructor(EventSourceServlet.class, EventSource.class, AsyncContext.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(servlet, Mockito.mock(EventSource.class), asyncContext);
+    }
+
+    private static Object fieldOf(SSEEventOutput sseEventOutput, String name) throws ReflectiveOperationException {
+        Field field = SSEEventOutput.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(sseEventOutput);
+    }
+
+}
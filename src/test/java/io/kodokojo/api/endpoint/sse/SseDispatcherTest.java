@@ -0,0 +1,153 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.eclipse.jetty.servlets.EventSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SseDispatcherTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private SseSessionRegistry registry;
+
+    private ExecutorService writers;
+
+    private EventSource.Emitter emitter;
+
+    private SseSession session;
+
+    @Before
+    public void setup() throws IOException {
+        registry = new SseSessionRegistry();
+        writers = mock(ExecutorService.class);
+        doAnswer(invocation -> tasks.add((Runnable) invocation.getArguments()[0])).when(writers).execute(any(Runnable.class));
+        emitter = mock(EventSource.Emitter.class);
+        SSEEventOutput output = new SSEEventOutput();
+        output.onOpen(emitter);
+        session = registry.register("jpthiery", output);
+    }
+
+    @Test
+    public void write_events_in_order_from_a_single_writer() throws IOException {
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 8, SseOverflowPolicy.DROP_OLDEST);
+
+        dispatcher.dispatch(session, SseFrame.data("first"), null);
+        dispatcher.dispatch(session, SseFrame.data("second"), null);
+
+        verify(emitter, never()).data(anyString());
+        assertThat(tasks).hasSize(1);
+        assertThat(dispatcher.pendingCount()).isEqualTo(2);
+
+        runTasks();
+
+        InOrder inOrder = inOrder(emitter);
+        inOrder.verify(emitter).data("first");
+        inOrder.verify(emitter).data("second");
+        assertThat(dispatcher.pendingCount()).isEqualTo(0);
+
+        dispatcher.dispatch(session, SseFrame.data("third"), null);
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void drop_oldest_event_when_queue_is_full() throws IOException {
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 2, SseOverflowPolicy.DROP_OLDEST);
+
+        dispatcher.dispatch(session, SseFrame.data("first"), null);
+        dispatcher.dispatch(session, SseFrame.data("second"), null);
+        dispatcher.dispatch(session, SseFrame.data("third"), null);
+        runTasks();
+
+        verify(emitter, never()).data("first");
+        verify(emitter).data("second");
+        verify(emitter).data("third");
+        assertThat(dispatcher.droppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void conflate_events_with_same_key_when_queue_is_full() throws IOException {
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 2, SseOverflowPolicy.CONFLATE);
+
+        dispatcher.dispatch(session, SseFrame.data("started-1"), "project-1");
+        dispatcher.dispatch(session, SseFrame.data("other-1"), "project-2");
+        dispatcher.dispatch(session, SseFrame.data("started-2"), "project-1");
+        runTasks();
+
+        InOrder inOrder = inOrder(emitter);
+        inOrder.verify(emitter).data("other-1");
+        inOrder.verify(emitter).data("started-2");
+        verify(emitter, never()).data("started-1");
+        assertThat(dispatcher.conflatedCount()).isEqualTo(1);
+        assertThat(dispatcher.droppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void disconnect_session_when_queue_is_full() throws IOException {
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 1, SseOverflowPolicy.DISCONNECT);
+
+        dispatcher.dispatch(session, SseFrame.data("first"), null);
+        dispatcher.dispatch(session, SseFrame.data("second"), null);
+        runTasks();
+
+        verify(emitter, never()).data(anyString());
+        verify(emitter).close();
+        assertThat(registry.size()).isEqualTo(0);
+        assertThat(dispatcher.disconnectedCount()).isEqualTo(1);
+        assertThat(dispatcher.droppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void close_session_when_write_fail() throws IOException {
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 8, SseOverflowPolicy.DROP_OLDEST);
+        doThrow(new IOException("Broken pipe")).when(emitter).data("first");
+
+        dispatcher.dispatch(session, SseFrame.data("first"), null);
+        dispatcher.dispatch(session, SseFrame.data("second"), null);
+        runTasks();
+
+        verify(emitter, never()).data("second");
+        assertThat(registry.size()).isEqualTo(0);
+        assertThat(dispatcher.droppedCount()).isEqualTo(1);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.eclipse.jetty.servlets.EventSource;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SseFrameTest {
+
+    @Test
+    public void encode_data_as_jetty_emitter() throws IOException {
+        SseFrame frame = SseFrame.data("{\"name\":\"été\",\n\"state\":\"RUNNING\"}");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        frame.writeTo(output);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("data: {\"name\":\"été\",\r\ndata: \"state\":\"RUNNING\"}\r\n\r\n");
+        assertThat(frame.length()).isEqualTo(output.size());
+    }
+
+    @Test
+    public void write_the_same_encoded_frame_on_each_session() throws IOException {
+        ServletOutputStream outputStream = mock(ServletOutputStream.class);
+        HttpServletRequest request = sseRequest(outputStream);
+        ExecutorService writers = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(writers).execute(any(Runnable.class));
+        SseSessionRegistry registry = new SseSessionRegistry();
+        SseDispatcher dispatcher = new SseDispatcher(registry, writers, 8, SseOverflowPolicy.DROP_OLDEST);
+        EventSource.Emitter emitter = mock(EventSource.Emitter.class);
+        for (int i = 0; i < 1000; i++) {
+            SSEEventOutput output = new SSEEventOutput(request);
+            output.onOpen(emitter);
+            registry.register("user-" + i, output);
+        }
+
+        SseFrame frame = SseFrame.data("{\"eventType\":\"brick_state_update\"}");
+        registry.forEach(session -> dispatcher.dispatch(session, frame, null));
+
+        ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+        verify(outputStream, times(1000)).write(written.capture());
+        byte[] first = written.getAllValues().get(0);
+        written.getAllValues().forEach(bytes -> assertThat(bytes).isSameAs(first));
+        verify(emitter, never()).data(anyString());
+    }
+
+    private static HttpServletRequest sseRequest(ServletOutputStream outputStream) throws IOException {
+        ServletResponse response = mock(ServletResponse.class);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+        return request;
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SseSessionQueueTest {
+
+    @Test
+    public void clear_keep_the_current_writer() {
+        SseSessionQueue queue = new SseSessionQueue();
+        queue.offer(SseFrame.data("first"), null, 1, SseOverflowPolicy.DISCONNECT);
+        assertThat(queue.startDraining()).isTrue();
+
+        assertThat(queue.offer(SseFrame.data("second"), null, 1, SseOverflowPolicy.DISCONNECT)).isEqualTo(SseSessionQueue.Offer.REJECTED);
+        assertThat(queue.clear()).isEqualTo(1);
+        queue.offer(SseFrame.data("third"), null, 1, SseOverflowPolicy.DISCONNECT);
+
+        assertThat(queue.startDraining()).isFalse();
+        assertThat(queue.poll().getData()).isEqualTo("third");
+    }
+
+    @Test
+    public void writer_which_stop_draining_let_another_writer_start() {
+        SseSessionQueue queue = new SseSessionQueue();
+        queue.offer(SseFrame.data("first"), null, 2, SseOverflowPolicy.DISCONNECT);
+        assertThat(queue.startDraining()).isTrue();
+
+        assertThat(queue.stopDraining()).isEqualTo(1);
+        queue.offer(SseFrame.data("second"), null, 2, SseOverflowPolicy.DISCONNECT);
+
+        assertThat(queue.startDraining()).isTrue();
+    }
+
+}
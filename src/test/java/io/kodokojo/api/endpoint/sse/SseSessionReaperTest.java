@@ -0,0 +1,84 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.eclipse.jetty.servlets.EventSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class SseSessionReaperTest {
+
+    private SseSessionRegistry registry;
+
+    private SseSessionReaper reaper;
+
+    @Before
+    public void setup() {
+        registry = new SseSessionRegistry();
+        reaper = new SseSessionReaper(registry, mock(ScheduledExecutorService.class), 1000);
+    }
+
+    @Test
+    public void unregister_session_when_connection_is_closed() throws IOException {
+        SSEEventOutput output = new SSEEventOutput();
+        EventSource.Emitter emitter = mock(EventSource.Emitter.class);
+        output.onOpen(emitter);
+        registry.register("jpthiery", output);
+
+        output.onClose();
+        output.onClose();
+
+        assertThat(registry.size()).isEqualTo(0);
+        verify(emitter, Mockito.times(1)).close();
+    }
+
+    @Test
+    public void reap_session_with_pending_events_without_write_since_previous_reaping() throws IOException {
+        SseSession active = register("jpthiery", mock(EventSource.Emitter.class));
+        SseSession quiet = register("jpthiery", mock(EventSource.Emitter.class));
+        SseSession stalled = registry.register("jpthiery", new SSEEventOutput());
+
+        active.getQueue().offer(SseFrame.data("data"), null, 16, SseOverflowPolicy.DROP_OLDEST);
+        stalled.getQueue().offer(SseFrame.data("data"), null, 16, SseOverflowPolicy.DROP_OLDEST);
+        reaper.reapStalledSessions();
+        assertThat(registry.size()).isEqualTo(3);
+
+        active.send("data");
+        stalled.send("data");
+        reaper.reapStalledSessions();
+
+        assertThat(registry.getSessionsOf("jpthiery")).containsOnly(active, quiet);
+        assertThat(stalled.getOutput().isClosed()).isTrue();
+        assertThat(reaper.reapedCount()).isEqualTo(1);
+    }
+
+    private SseSession register(String userIdentifier, EventSource.Emitter emitter) throws IOException {
+        SSEEventOutput output = new SSEEventOutput();
+        output.onOpen(emitter);
+        return registry.register(userIdentifier, output);
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.endpoint.sse;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SseSessionRegistryTest {
+
+    @Test
+    public void keep_all_sessions_of_a_user() {
+        SseSessionRegistry registry = new SseSessionRegistry();
+
+        SseSession first = registry.register("jpthiery", new SSEEventOutput());
+        SseSession second = registry.register("jpthiery", new SSEEventOutput());
+        registry.register("other", new SSEEventOutput());
+
+        assertThat(registry.getSessionsOf("jpthiery")).containsOnly(first, second);
+        assertThat(first.getId()).isNotEqualTo(second.getId());
+        assertThat(registry.size()).isEqualTo(3);
+
+        assertThat(registry.unregister(first)).isTrue();
+        assertThat(registry.unregister(first)).isFalse();
+        assertThat(registry.getSessionsOf("jpthiery")).containsOnly(second);
+        assertThat(registry.size()).isEqualTo(2);
+
+        registry.unregister(second);
+        assertThat(registry.getSessionsOf("jpthiery")).isEmpty();
+    }
+
+    @Test
+    public void tell_disconnected_listener_when_user_reconnects() {
+        List<BooleanSupplier> stillDisconnected = new ArrayList<>();
+        SseSessionRegistry registry = new SseSessionRegistry((userIdentifier, check) -> stillDisconnected.add(check));
+        SseSession session = registry.register("jpthiery", new SSEEventOutput());
+
+        registry.unregister(session);
+        assertThat(stillDisconnected).hasSize(1);
+        assertThat(stillDisconnected.get(0).getAsBoolean()).isTrue();
+
+        registry.register("jpthiery", new SSEEventOutput());
+        assertThat(stillDisconnected.get(0).getAsBoolean()).isFalse();
+    }
+
+    @Test
+    public void fan_out_only_to_sessions_of_given_users() {
+        SseSessionRegistry registry = new SseSessionRegistry();
+        for (int i = 0; i < 10000; i++) {
+            registry.register("user-" + (i % 2500), new SSEEventOutput());
+        }
+        assertThat(registry.size()).isEqualTo(10000);
+
+        List<SseSession> notified = new ArrayList<>();
+        registry.forEachSessionOf(Arrays.asList("user-1", "user-42", "unknown"), notified::add);
+
+        assertThat(notified).hasSize(8);
+        assertThat(notified).extracting(SseSession::getUserIdentifier).containsOnly("user-1", "user-42");
+    }
+
+    @Test
+    public void fan_out_while_sessions_connect_and_disconnect() throws InterruptedException {
+        SseSessionRegistry registry = new SseSessionRegistry();
+        List<SseSession> stable = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            stable.add(registry.register("member", new SSEEventOutput()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 2500; j++) {
+                    SseSession session = registry.register("user-" + thread, new SSEEventOutput());
+                    registry.unregister(session);
+                }
+                done.countDown();
+            });
+        }
+        AtomicInteger notified = new AtomicInteger();
+        while (done.getCount() > 0) {
+            notified.set(0);
+            registry.forEachSessionOf(Arrays.asList("member", "user-0"), session -> {
+                if ("member".equals(session.getUserIdentifier())) {
+                    notified.incrementAndGet();
+                }
+            });
+            assertThat(notified.get()).isEqualTo(stable.size());
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(registry.size()).isEqualTo(stable.size());
+        assertThat(registry.getSessionsOf("user-0")).isEmpty();
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.event.payload;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import io.kodokojo.commons.event.payload.OrganisationChangeUserRequest;
+import io.kodokojo.commons.model.User;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrganisationChangeUsersRequestTest {
+
+    private final User requester = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+
+    private final Gson gson = new GsonBuilder().create();
+
+    @Test
+    public void carry_all_user_identifiers_in_one_payload() {
+        OrganisationChangeUsersRequest request = new OrganisationChangeUsersRequest(requester, OrganisationChangeUserRequest.TypeChange.ADD, "5678", Arrays.asList("a", "b", "c"));
+
+        JsonObject json = gson.toJsonTree(request).getAsJsonObject();
+
+        assertThat(json.getAsJsonArray("userIdentifiers")).hasSize(3);
+        assertThat(json.has("userId")).isFalse();
+        assertThat(json.get("organisationId").getAsString()).isEqualTo("5678");
+        assertThat(json.get("typeChange").getAsString()).isEqualTo("ADD");
+    }
+
+    @Test
+    public void single_user_payload_is_readable_in_single_user_form() {
+        OrganisationChangeUsersRequest request = new OrganisationChangeUsersRequest(requester, OrganisationChangeUserRequest.TypeChange.REMOVE, "5678", Collections.singletonList("a"));
+
+        JsonObject json = gson.toJsonTree(request).getAsJsonObject();
+
+        assertThat(request.getUserId()).isEqualTo("a");
+        assertThat(json.get("userId").getAsString()).isEqualTo("a");
+        assertThat(json.getAsJsonArray("userIdentifiers")).hasSize(1);
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setup() {
+        circuitBreaker = new CircuitBreaker("test", 3, 10, 1, TimeUnit.SECONDS, now::get);
+    }
+
+    @Test
+    public void open_after_consecutive_failures_only() {
+        fail(2);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onSuccess();
+        fail(2);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        assertThat(circuitBreaker.rejectedCount()).isEqualTo(1);
+        assertThat(circuitBreaker.remainingOpenTime()).isEqualTo(10000);
+    }
+
+    @Test
+    public void allow_a_single_trial_once_open_duration_elapsed_and_close_on_success() {
+        fail(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        circuitBreaker.onSuccess();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        assertThat(circuitBreaker.transitionCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void open_again_when_trial_fail() {
+        fail(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void cancelled_trial_allow_an_other_trial() {
+        fail(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onCancel();
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    private void fail(int count) {
+        for (int i = 0; i < count; i++) {
+            assertThat(circuitBreaker.tryAcquire()).isTrue();
+            circuitBreaker.onFailure();
+        }
+    }
+
+}
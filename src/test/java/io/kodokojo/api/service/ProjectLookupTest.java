@@ -0,0 +1,120 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ProjectLookupTest {
+
+    private static final long LATENCY = 50;
+
+    private ExecutorService executorService;
+
+    private ProjectFetcher projectFetcher;
+
+    private OrganisationFetcher organisationFetcher;
+
+    private ProjectLookup projectLookup;
+
+    private CountDownLatch pendingFetches;
+
+    @Before
+    public void setup() {
+        Project project = mock(Project.class);
+        when(project.getProjectConfigurationIdentifier()).thenReturn("config");
+        ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+        when(projectConfiguration.getIdentifier()).thenReturn("config");
+        when(projectConfiguration.getEntityIdentifier()).thenReturn("organisation");
+        Organisation organisation = mock(Organisation.class);
+        when(organisation.getIdentifier()).thenReturn("organisation");
+
+        //  Each fetch simulate a round trip to Redis.
+        projectFetcher = mock(ProjectFetcher.class);
+        organisationFetcher = mock(OrganisationFetcher.class);
+        when(projectFetcher.getProjectByIdentifier("project")).then(roundTrip(project));
+        when(projectFetcher.getProjectConfigurationById("config")).then(roundTrip(projectConfiguration));
+        when(organisationFetcher.getOrganisationById("organisation")).then(roundTrip(organisation));
+
+        executorService = Executors.newFixedThreadPool(2);
+        projectLookup = new ProjectLookup(projectFetcher, organisationFetcher, executorService, 10, 1, TimeUnit.DAYS);
+    }
+
+    @After
+    public void tearDown() {
+        projectLookup.stop();
+    }
+
+    @Test
+    public void first_lookup_resolve_the_chain() {
+        ProjectLookup.ProjectHierarchy projectHierarchy = projectLookup.lookup("project");
+
+        assertThat(projectHierarchy.getProject()).isNotNull();
+        assertThat(projectHierarchy.getProjectConfiguration().getIdentifier()).isEqualTo("config");
+        assertThat(projectHierarchy.getOrganisation().getIdentifier()).isEqualTo("organisation");
+    }
+
+    @Test
+    public void next_lookups_fetch_the_chain_in_parallel() {
+        projectLookup.lookup("project");
+
+        //  Each fetch wait until the three fetches are pending, which only happen if they are issued in parallel.
+        pendingFetches = new CountDownLatch(3);
+        long start = System.nanoTime();
+        ProjectLookup.ProjectHierarchy projectHierarchy = projectLookup.lookup("project");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(projectHierarchy.getOrganisation().getIdentifier()).isEqualTo("organisation");
+        assertThat(pendingFetches.getCount()).isEqualTo(0);
+        assertThat(elapsed).isLessThan(3 * LATENCY);
+        verify(projectFetcher, times(2)).getProjectByIdentifier("project");
+    }
+
+    @Test
+    public void unknown_project_is_not_found() {
+        assertThat(projectLookup.lookup("unknown").getProject()).isNull();
+    }
+
+    private <T> Answer<T> roundTrip(T value) {
+        return invocation -> {
+            CountDownLatch latch = pendingFetches;
+            if (latch != null) {
+                latch.countDown();
+                latch.await(1, TimeUnit.SECONDS);
+            }
+            Thread.sleep(LATENCY);
+            return value;
+        };
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProjectMembershipIndexTest {
+
+    private final ProjectMembershipIndex index = new ProjectMembershipIndex(100, 1, TimeUnit.MINUTES);
+
+    @Test
+    public void users_and_team_leaders_are_members() {
+        ProjectConfiguration projectConfiguration = projectConfiguration(new String[]{"leader"}, "alice", "bob");
+
+        assertThat(index.getMembers(projectConfiguration)).containsOnly("leader", "alice", "bob");
+        assertThat(index.isMember(projectConfiguration, "leader")).isTrue();
+        assertThat(index.isMember(projectConfiguration, "alice")).isTrue();
+        assertThat(index.isMember(projectConfiguration, "carol")).isFalse();
+        assertThat(index.isTeamLeader(projectConfiguration, "leader")).isTrue();
+        assertThat(index.isTeamLeader(projectConfiguration, "alice")).isFalse();
+    }
+
+    @Test
+    public void index_is_built_once_per_project_configuration_instance() {
+        ProjectConfiguration projectConfiguration = projectConfiguration(new String[]{"leader"}, "alice");
+
+        index.isMember(projectConfiguration, "alice");
+        index.isTeamLeader(projectConfiguration, "leader");
+        index.getMembers(projectConfiguration);
+
+        verify(projectConfiguration, times(1)).getUsers();
+        verify(projectConfiguration, times(1)).getTeamLeaders();
+    }
+
+    @Test
+    public void index_is_rebuilt_when_project_configuration_instance_changes() {
+        ProjectConfiguration previous = projectConfiguration(new String[]{"leader"}, "alice");
+        assertThat(index.isMember(previous, "bob")).isFalse();
+
+        ProjectConfiguration fetchedAfterChange = projectConfiguration(new String[]{"leader"}, "alice", "bob");
+
+        assertThat(index.isMember(fetchedAfterChange, "bob")).isTrue();
+        assertThat(index.getMembers(fetchedAfterChange)).containsOnly("leader", "alice", "bob");
+    }
+
+    private static ProjectConfiguration projectConfiguration(String[] teamLeaders, String... users) {
+        ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+        when(projectConfiguration.getIdentifier()).thenReturn("project");
+        when(projectConfiguration.getTeamLeaders()).thenAnswer(invocation -> Arrays.stream(teamLeaders).map(ProjectMembershipIndexTest::user).iterator());
+        when(projectConfiguration.getUsers()).thenAnswer(invocation -> Arrays.stream(users).map(ProjectMembershipIndexTest::user).iterator());
+        return projectConfiguration;
+    }
+
+    private static User user(String identifier) {
+        return new User(identifier, Collections.emptySet(), identifier, identifier, identifier + "@kodokojo.io", "password", "ssh-rsa AAAA", false);
+    }
+
+}
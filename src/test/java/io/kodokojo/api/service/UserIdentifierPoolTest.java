@@ -0,0 +1,147 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserIdentifierPoolTest {
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private EventBus eventBus;
+
+    private EventBuilderFactory eventBuilderFactory;
+
+    private CircuitBreaker circuitBreaker;
+
+    private UserIdentifierPool userIdentifierPool;
+
+    @Before
+    public void setup() throws Exception {
+        eventBus = mock(EventBus.class);
+        when(eventBus.request(any(Event.class), anyInt(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            Event reply = mock(Event.class);
+            when(reply.getPayload()).thenReturn("\"id-" + requestCount.incrementAndGet() + "\"");
+            return reply;
+        });
+        EventBuilder eventBuilder = mock(EventBuilder.class);
+        when(eventBuilder.setEventType(anyString())).thenReturn(eventBuilder);
+        when(eventBuilder.setJsonPayload(anyString())).thenReturn(eventBuilder);
+        when(eventBuilder.build()).thenReturn(mock(Event.class));
+        eventBuilderFactory = mock(EventBuilderFactory.class);
+        when(eventBuilderFactory.create()).thenReturn(eventBuilder);
+        circuitBreaker = new CircuitBreaker("userIdentifierCreation", 2, 1, 1, TimeUnit.MINUTES);
+        userIdentifierPool = new UserIdentifierPool(eventBus, eventBuilderFactory, Executors.newSingleThreadExecutor(), circuitBreaker, 5, 2, 1000, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        userIdentifierPool.stop();
+    }
+
+    @Test
+    public void fill_pool_up_to_capacity_on_start() throws Exception {
+        userIdentifierPool.start();
+
+        awaitSize(5);
+
+        assertThat(requestCount.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void serve_identifiers_from_memory_and_refill_under_low_water_mark() throws Exception {
+        userIdentifierPool.start();
+        awaitSize(5);
+
+        Set<String> identifiers = new HashSet<>();
+        identifiers.add(userIdentifierPool.poll());
+        identifiers.add(userIdentifierPool.poll());
+        identifiers.add(userIdentifierPool.poll());
+        assertThat(requestCount.get()).isEqualTo(5);
+        identifiers.add(userIdentifierPool.poll());
+
+        assertThat(identifiers).hasSize(4).doesNotContainNull();
+        awaitSize(5);
+        assertThat(requestCount.get()).isEqualTo(9);
+        assertThat(userIdentifierPool.missCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void empty_pool_return_null_and_trigger_refill() throws Exception {
+        assertThat(userIdentifierPool.poll()).isNull();
+
+        awaitSize(5);
+        assertThat(userIdentifierPool.missCount()).isEqualTo(1);
+        assertThat(userIdentifierPool.poll()).isEqualTo("\"id-1\"");
+    }
+
+    @Test
+    public void expired_identifiers_are_discarded() throws Exception {
+        userIdentifierPool.stop();
+        userIdentifierPool = new UserIdentifierPool(eventBus, eventBuilderFactory, Executors.newSingleThreadExecutor(), circuitBreaker, 5, 0, 1000, 50);
+        userIdentifierPool.start();
+        awaitSize(5);
+
+        Thread.sleep(100);
+
+        assertThat(userIdentifierPool.poll()).isNull();
+        assertThat(userIdentifierPool.expiredCount()).isEqualTo(5);
+        assertThat(userIdentifierPool.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void pool_is_not_refilled_while_circuit_is_open() throws Exception {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(userIdentifierPool.poll()).isNull();
+        Thread.sleep(100);
+
+        assertThat(userIdentifierPool.size()).isEqualTo(0);
+        assertThat(requestCount.get()).isEqualTo(0);
+    }
+
+    private void awaitSize(int expected) throws InterruptedException {
+        long end = System.currentTimeMillis() + 2000;
+        while (userIdentifierPool.size() != expected && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertThat(userIdentifierPool.size()).isEqualTo(expected);
+    }
+
+}
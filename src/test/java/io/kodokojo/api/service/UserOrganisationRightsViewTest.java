@@ -0,0 +1,183 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.event.payload.OrganisationChangeUsersRequest;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.dto.UserOrganisationRightDto;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.payload.OrganisationChangeUserRequest;
+import io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserOrganisationRightsViewTest {
+
+    private final User alice = user("alice", "acme");
+
+    private final User bob = user("bob", "globex");
+
+    private final User carol = user("carol", "acme");
+
+    private final Map<String, Integer> computeCount = new HashMap<>();
+
+    private final AtomicReference<Runnable> duringCompute = new AtomicReference<>();
+
+    private UserOrganisationRightsView view;
+
+    @Before
+    public void setup() {
+        OrganisationFetcher organisationFetcher = mock(OrganisationFetcher.class);
+        Organisation acme = mock(Organisation.class);
+        ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+        when(projectConfiguration.getIdentifier()).thenReturn("acme-project");
+        when(acme.getProjectConfigurations()).thenAnswer(invocation -> Collections.singletonList(projectConfiguration).iterator());
+        when(organisationFetcher.getOrganisationById("acme")).thenReturn(acme);
+        view = new UserOrganisationRightsView(organisationFetcher, this::computeRights, 100, 100, 1, TimeUnit.MINUTES, new MetricRegistry());
+    }
+
+    @Test
+    public void serve_rights_from_view_once_computed() {
+        List<UserOrganisationRightDto> rights = view.getOrganisationRights(alice);
+
+        assertThat(view.getOrganisationRights(alice)).isSameAs(rights);
+        assertThat(rights).extracting(UserOrganisationRightDto::getIdentifier).containsExactly("acme");
+        assertThat(computeCount.get("alice")).isEqualTo(1);
+    }
+
+    @Test
+    public void user_update_drops_only_updated_user() {
+        loadAll();
+
+        assertThat(view.receive(event(Event.USER_UPDATE_REQUEST, Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "alice"))).get()).isTrue();
+
+        assertRecomputed("alice");
+    }
+
+    @Test
+    public void organisation_admin_change_drops_members_of_organisation_and_changed_users() {
+        loadAll();
+        OrganisationChangeUsersRequest payload = new OrganisationChangeUsersRequest(alice, OrganisationChangeUserRequest.TypeChange.ADD, "acme", Collections.singletonList("bob"));
+
+        view.receive(event(Event.ORGANISATION_CHANGE_ADMIN_REQUEST, OrganisationChangeUsersRequest.class, payload));
+
+        assertRecomputed("alice", "bob", "carol");
+    }
+
+    @Test
+    public void project_configuration_user_change_drops_changed_users() {
+        loadAll();
+        ProjectConfigurationChangeUserRequest payload = mock(ProjectConfigurationChangeUserRequest.class);
+        when(payload.getProjectConfigurationId()).thenReturn("acme-project");
+        when(payload.getUserIdentifiers()).thenReturn(Collections.singletonList("bob"));
+
+        view.receive(event(Event.PROJECTCONFIG_CHANGE_USER_REQUEST, ProjectConfigurationChangeUserRequest.class, payload));
+
+        assertRecomputed("bob");
+    }
+
+    @Test
+    public void project_configuration_start_drops_members_of_its_organisation() {
+        loadAll();
+
+        view.receive(event(Event.PROJECTCONFIG_STARTED, Collections.singletonMap(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, "acme-project")));
+
+        assertRecomputed("alice", "carol");
+    }
+
+    @Test
+    public void project_configuration_creation_drops_all_users() {
+        loadAll();
+
+        view.receive(event(Event.PROJECTCONFIG_CREATION_REQUEST, Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "alice")));
+
+        assertRecomputed("alice", "bob", "carol");
+    }
+
+    @Test
+    public void rights_computed_across_an_invalidation_are_not_cached() {
+        duringCompute.set(() -> view.receive(event(Event.PROJECTCONFIG_STARTED, Collections.singletonMap(Event.PROJECTCONFIGURATION_ID_CUSTOM_HEADER, "acme-project"))));
+        view.getOrganisationRights(alice);
+        duringCompute.set(null);
+
+        view.getOrganisationRights(alice);
+        view.getOrganisationRights(alice);
+
+        assertThat(computeCount.get("alice")).isEqualTo(2);
+    }
+
+    private void loadAll() {
+        Arrays.asList(alice, bob, carol).forEach(view::getOrganisationRights);
+    }
+
+    private void assertRecomputed(String... userIdentifiers) {
+        loadAll();
+        List<String> recomputed = Arrays.asList(userIdentifiers);
+        for (String userIdentifier : Arrays.asList("alice", "bob", "carol")) {
+            assertThat(computeCount.get(userIdentifier)).as(userIdentifier).isEqualTo(recomputed.contains(userIdentifier) ? 2 : 1);
+        }
+    }
+
+    private List<UserOrganisationRightDto> computeRights(User user) {
+        computeCount.merge(user.getIdentifier(), 1, Integer::sum);
+        Runnable action = duringCompute.get();
+        if (action != null) {
+            action.run();
+        }
+        return user.getOrganisationIds().stream().map(organisationIdentifier -> {
+            UserOrganisationRightDto organisationRight = mock(UserOrganisationRightDto.class);
+            when(organisationRight.getIdentifier()).thenReturn(organisationIdentifier);
+            return organisationRight;
+        }).collect(Collectors.toList());
+    }
+
+    private static Event event(String eventType, Map<String, String> custom) {
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(eventType);
+        when(event.getCustom()).thenReturn(custom);
+        return event;
+    }
+
+    private static <T> Event event(String eventType, Class<T> payloadClass, T payload) {
+        Event event = event(eventType, Collections.emptyMap());
+        when(event.getPayload(payloadClass)).thenReturn(payload);
+        return event;
+    }
+
+    private static User user(String identifier, String organisationIdentifier) {
+        return new User(identifier, Collections.singleton(organisationIdentifier), identifier, identifier, identifier + "@kodokojo.io", "password", "ssh-rsa AAAA", false);
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service;
+
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.config.WarmUpConfig;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.service.BrickFactory;
+import io.kodokojo.commons.service.repository.OrganisationFetcher;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class WarmUpTest {
+
+    @Test
+    public void warm_up_respect_its_budget() {
+        OrganisationFetcher organisationFetcher = mock(OrganisationFetcher.class);
+        Organisation organisation = mock(Organisation.class);
+        when(organisationFetcher.getOrganisationById("fast")).thenReturn(organisation);
+        when(organisationFetcher.getOrganisationById("slow")).then(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            return organisation;
+        });
+        BrickFactory brickFactory = mock(BrickFactory.class);
+        when(brickFactory.listBrickAvailable()).thenReturn(Collections.emptyList());
+        WarmUp warmUp = new WarmUp(warmUpConfig(true, "fast,slow"), organisationFetcher, mock(ProjectFetcher.class), new BrickCatalog(brickFactory), repositoryCacheConfig(10000));
+
+        long start = System.nanoTime();
+        int done = warmUp.run();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThat(done).isEqualTo(2);
+        verify(brickFactory).listBrickAvailable();
+    }
+
+    @Test
+    public void warm_up_is_disabled_by_default() {
+        OrganisationFetcher organisationFetcher = mock(OrganisationFetcher.class);
+        WarmUp warmUp = new WarmUp(warmUpConfig(false, "fast"), organisationFetcher, mock(ProjectFetcher.class), new BrickCatalog(mock(BrickFactory.class)), repositoryCacheConfig(10000));
+
+        assertThat(warmUp.run()).isEqualTo(0);
+        verifyZeroInteractions(organisationFetcher);
+    }
+
+    @Test
+    public void warm_up_budget_is_bounded_by_half_of_cache_ttl() {
+        OrganisationFetcher organisationFetcher = mock(OrganisationFetcher.class);
+        when(organisationFetcher.getOrganisationById("slow")).then(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            return mock(Organisation.class);
+        });
+        WarmUp warmUp = new WarmUp(warmUpConfig(true, "slow", 4000), organisationFetcher, mock(ProjectFetcher.class), new BrickCatalog(mock(BrickFactory.class)), repositoryCacheConfig(200));
+
+        long start = System.nanoTime();
+        warmUp.run();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+    }
+
+    private static RepositoryCacheConfig repositoryCacheConfig(long ttl) {
+        RepositoryCacheConfig repositoryCacheConfig = mock(RepositoryCacheConfig.class);
+        when(repositoryCacheConfig.ttl()).thenReturn(ttl);
+        return repositoryCacheConfig;
+    }
+
+    private static WarmUpConfig warmUpConfig(boolean enabled, String organisationIds) {
+        return warmUpConfig(enabled, organisationIds, 200);
+    }
+
+    private static WarmUpConfig warmUpConfig(boolean enabled, String organisationIds, long budget) {
+        return new WarmUpConfig() {
+            @Override
+            public Boolean enabled() {
+                return enabled;
+            }
+
+            @Override
+            public long budget() {
+                return budget;
+            }
+
+            @Override
+            public String organisationIds() {
+                return organisationIds;
+            }
+
+            @Override
+            public String projectConfigurationIds() {
+                return "";
+            }
+        };
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.authentification;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthenticationThrottlerTest {
+
+    @Test
+    public void throttle_username_before_ip() {
+        AuthenticationThrottler throttler = new AuthenticationThrottler(256, 2, 3, 1, TimeUnit.MINUTES);
+
+        throttler.recordFailure("10.0.0.1", "jpthiery");
+        assertThat(throttler.isThrottled("10.0.0.1", "jpthiery")).isFalse();
+        throttler.recordFailure("10.0.0.1", "jpthiery");
+
+        assertThat(throttler.isThrottled("10.0.0.1", "jpthiery")).isTrue();
+        assertThat(throttler.isThrottled("10.0.0.1", "other")).isFalse();
+        assertThat(throttler.isThrottled("10.0.0.2", "jpthiery")).isFalse();
+
+        throttler.recordFailure("10.0.0.1", "other");
+        assertThat(throttler.isThrottled("10.0.0.1", null)).isTrue();
+        assertThat(throttler.failureCount()).isEqualTo(3);
+        assertThat(throttler.rejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void failures_decay_over_time() {
+        AtomicLong now = new AtomicLong();
+        AuthenticationThrottler throttler = new AuthenticationThrottler(256, 2, 10, 1, TimeUnit.MINUTES, now::get);
+        throttler.recordFailure("10.0.0.1", "jpthiery");
+        throttler.recordFailure("10.0.0.1", "jpthiery");
+        assertThat(throttler.isThrottled("10.0.0.1", "jpthiery")).isTrue();
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        assertThat(throttler.isThrottled("10.0.0.1", "jpthiery")).isFalse();
+        assertThat(throttler.retryAfterInSeconds()).isEqualTo(60);
+    }
+
+    @Test
+    public void usernames_with_same_string_hash_do_not_share_counters() {
+        AuthenticationThrottler throttler = new AuthenticationThrottler(1 << 16, 2, 10, 1, TimeUnit.MINUTES);
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        throttler.recordFailure("10.0.0.1", "AaAa");
+        throttler.recordFailure("10.0.0.1", "AaAa");
+
+        assertThat(throttler.isThrottled("10.0.0.1", "AaAa")).isTrue();
+        assertThat(throttler.isThrottled("10.0.0.1", "BBBB")).isFalse();
+        assertThat(AuthenticationThrottler.hash(42, "10.0.0.1", "AaAa")).isNotEqualTo(AuthenticationThrottler.hash(42, "10.0.0.1", "BBBB"));
+        assertThat(AuthenticationThrottler.hash(42, "10.0.0.1", "a")).isNotEqualTo(AuthenticationThrottler.hash(42, "10.0.0.1a", null));
+        assertThat(AuthenticationThrottler.hash(42, "10.0.0.1", null)).isNotEqualTo(AuthenticationThrottler.hash(43, "10.0.0.1", null));
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.authentification;
+
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SimpleUserAuthenticatorTest {
+
+    private UserFetcher userFetcher;
+
+    private MetricRegistry metricRegistry;
+
+    private SimpleUserAuthenticator userAuthenticator;
+
+    @Before
+    public void setup() {
+        userFetcher = mock(UserFetcher.class);
+        User user = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+        when(userFetcher.getUserByUsername("jpthiery")).thenReturn(user);
+        metricRegistry = new MetricRegistry();
+        userAuthenticator = new SimpleUserAuthenticator(userFetcher, new AuthenticationConfig() {
+            @Override
+            public int cacheSize() {
+                return 10;
+            }
+
+            @Override
+            public long cacheTtl() {
+                return 60000;
+            }
+
+            @Override
+            public String tokenSecret() {
+                return "";
+            }
+
+            @Override
+            public long tokenTtl() {
+                return 60000;
+            }
+
+            @Override
+            public int throttleMaxFailuresByUsername() {
+                return 10;
+            }
+
+            @Override
+            public int throttleMaxFailuresByIp() {
+                return 50;
+            }
+
+            @Override
+            public long throttleDecayPeriod() {
+                return 60000;
+            }
+
+            @Override
+            public int throttleSize() {
+                return 4096;
+            }
+        }, metricRegistry);
+    }
+
+    @Test
+    public void verified_credential_are_served_from_cache() {
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"))).isNotNull();
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"))).isNotNull();
+
+        verify(userFetcher, times(1)).getUserByUsername("jpthiery");
+        assertThat(metricRegistry.snapshot().get("authentication.cache.hit")).isEqualTo(1L);
+    }
+
+    @Test
+    public void invalid_password_is_never_served_from_cache() {
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"))).isNotNull();
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "wrong"))).isNull();
+
+        verify(userFetcher, times(2)).getUserByUsername("jpthiery");
+    }
+
+    @Test
+    public void user_update_invalidate_verified_credential() {
+        userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"));
+
+        Event event = Mockito.mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(event.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+        assertThat(userAuthenticator.receive(event).get()).isTrue();
+
+        userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"));
+        verify(userFetcher, times(2)).getUserByUsername("jpthiery");
+    }
+
+    @Test
+    public void user_update_reply_invalidate_credential_cached_while_update_was_pending() {
+        Event request = Mockito.mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(request.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+        userAuthenticator.receive(request);
+
+        //  Backend did not apply the update yet, previous password is still valid and cached.
+        userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"));
+        userAuthenticator.onReply(request, Mockito.mock(Event.class));
+
+        userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"));
+        verify(userFetcher, times(2)).getUserByUsername("jpthiery");
+    }
+
+    @Test
+    public void lookup_started_before_an_invalidation_is_not_cached() {
+        User user = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+        Event request = Mockito.mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(request.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+        doAnswer(invocation -> {
+            userAuthenticator.onReply(request, Mockito.mock(Event.class));
+            return user;
+        }).when(userFetcher).getUserByUsername("jpthiery");
+
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"))).isNotNull();
+        assertThat(userAuthenticator.authenticate(new SimpleCredential("jpthiery", "jpascal"))).isNotNull();
+
+        verify(userFetcher, times(2)).getUserByUsername("jpthiery");
+    }
+
+}
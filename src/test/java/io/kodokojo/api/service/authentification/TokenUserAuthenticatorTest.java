@@ -0,0 +1,67 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.authentification;
+
+import io.kodokojo.commons.model.User;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenUserAuthenticatorTest {
+
+    private static final User USER = new User("1234", new HashSet<>(Arrays.asList("5678", "9012")), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", true);
+
+    @Test
+    public void token_carry_requester() {
+        TokenUserAuthenticator authenticator = new TokenUserAuthenticator("secret".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.MINUTES);
+
+        User user = authenticator.authenticate(new TokenCredential(authenticator.createToken(USER)));
+
+        assertThat(user).isNotNull();
+        assertThat(user.getIdentifier()).isEqualTo("1234");
+        assertThat(user.getUsername()).isEqualTo("jpthiery");
+        assertThat(user.getOrganisationIds()).containsOnly("5678", "9012");
+        assertThat(user.isRoot()).isTrue();
+        assertThat(user.getPassword()).isEmpty();
+    }
+
+    @Test
+    public void token_signed_with_another_secret_is_rejected() {
+        TokenUserAuthenticator authenticator = new TokenUserAuthenticator("secret".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.MINUTES);
+        TokenUserAuthenticator other = new TokenUserAuthenticator("other".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.MINUTES);
+
+        assertThat(authenticator.authenticate(new TokenCredential(other.createToken(USER)))).isNull();
+    }
+
+    @Test
+    public void tampered_token_is_rejected() {
+        TokenUserAuthenticator authenticator = new TokenUserAuthenticator("secret".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.MINUTES);
+        String token = authenticator.createToken(USER);
+        String tampered = "x" + token.substring(1);
+
+        assertThat(authenticator.authenticate(new TokenCredential(tampered))).isNull();
+        assertThat(authenticator.authenticate(new TokenCredential("not-a-token"))).isNull();
+        assertThat(authenticator.authenticate(new TokenCredential("a.%%%"))).isNull();
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void entry_expire_after_ttl() {
+        AtomicLong clock = new AtomicLong();
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.SECONDS, clock::get);
+        cache.put("key", "value");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(cache.get("key")).isEqualTo("value");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void least_recently_used_entry_is_evicted_when_full() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 1, TimeUnit.MINUTES);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void value_read_before_an_invalidation_is_not_cached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.MINUTES);
+        long generation = cache.generation();
+
+        cache.invalidate("key");
+
+        assertThat(cache.put("key", "stale", generation)).isFalse();
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.put("key", "fresh", cache.generation())).isTrue();
+        assertThat(cache.get("key")).isEqualTo("fresh");
+    }
+
+}
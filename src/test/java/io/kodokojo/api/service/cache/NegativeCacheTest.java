@@ -0,0 +1,100 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class NegativeCacheTest {
+
+    private NegativeCache negativeCache;
+
+    private UserFetcher backend;
+
+    private UserFetcher userFetcher;
+
+    @Before
+    public void setup() {
+        negativeCache = new NegativeCache(100, 1, TimeUnit.MINUTES, new MetricRegistry());
+        backend = mock(UserFetcher.class);
+        userFetcher = negativeCache.decorate(backend);
+    }
+
+    @Test
+    public void unknown_identifier_is_looked_up_once() {
+        assertThat(userFetcher.getUserByUsername("scanner")).isNull();
+        assertThat(userFetcher.getUserByUsername("scanner")).isNull();
+
+        verify(backend, times(1)).getUserByUsername("scanner");
+    }
+
+    @Test
+    public void user_creation_forget_user_misses_only() {
+        ProjectFetcher projectBackend = mock(ProjectFetcher.class);
+        ProjectFetcher projectFetcher = negativeCache.decorate(projectBackend);
+        userFetcher.getUserByIdentifier("1234");
+        projectFetcher.getProjectByIdentifier("5678");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.USER_CREATION_REQUEST);
+
+        assertThat(negativeCache.receive(event).get()).isTrue();
+        userFetcher.getUserByIdentifier("1234");
+        projectFetcher.getProjectByIdentifier("5678");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+        verify(projectBackend, times(1)).getProjectByIdentifier("5678");
+    }
+
+    @Test
+    public void user_creation_reply_forget_miss_read_while_creation_was_pending() {
+        Event request = mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_CREATION_REQUEST);
+        negativeCache.receive(request);
+        userFetcher.getUserByIdentifier("1234");
+
+        negativeCache.onReply(request, mock(Event.class));
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+    @Test
+    public void miss_read_before_a_creation_is_not_remembered() {
+        Event request = mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_CREATION_REQUEST);
+        doAnswer(invocation -> {
+            negativeCache.receive(request);
+            return null;
+        }).when(backend).getUserByIdentifier("1234");
+
+        userFetcher.getUserByIdentifier("1234");
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+}
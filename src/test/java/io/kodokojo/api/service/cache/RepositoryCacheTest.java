@@ -0,0 +1,155 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.api.service.metric.MetricRegistry;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.payload.ProjectConfigurationChangeUserRequest;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class RepositoryCacheTest {
+
+    private User user;
+
+    private UserFetcher backend;
+
+    private RepositoryCache repositoryCache;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setup() {
+        user = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+        backend = mock(UserFetcher.class);
+        when(backend.getUserByIdentifier("1234")).thenReturn(user);
+        when(backend.getUserByUsername("jpthiery")).thenReturn(user);
+        metricRegistry = new MetricRegistry();
+        repositoryCache = new RepositoryCache(10, 10, 10, 1, TimeUnit.MINUTES, metricRegistry);
+    }
+
+    @Test
+    public void user_is_fetched_once() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+
+        assertThat(userFetcher.getUserByIdentifier("1234")).isEqualTo(user);
+        assertThat(userFetcher.getUserByIdentifier("1234")).isEqualTo(user);
+
+        verify(backend, times(1)).getUserByIdentifier("1234");
+        assertThat(metricRegistry.snapshot().get("repository.cache.user.hitRatio")).isEqualTo(0.5d);
+    }
+
+    @Test
+    public void other_methods_are_delegated() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+
+        userFetcher.getUserByUsername("jpthiery");
+        userFetcher.getUserByUsername("jpthiery");
+
+        verify(backend, times(2)).getUserByUsername("jpthiery");
+    }
+
+    @Test
+    public void missing_user_is_not_cached() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+
+        assertThat(userFetcher.getUserByIdentifier("unknown")).isNull();
+        assertThat(userFetcher.getUserByIdentifier("unknown")).isNull();
+
+        verify(backend, times(2)).getUserByIdentifier("unknown");
+    }
+
+    @Test
+    public void user_update_invalidate_user() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+        userFetcher.getUserByIdentifier("1234");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(event.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+
+        assertThat(repositoryCache.receive(event).get()).isTrue();
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+    @Test
+    public void user_update_reply_invalidate_user_cached_while_update_was_pending() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+        Event request = mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(request.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+        repositoryCache.receive(request);
+        userFetcher.getUserByIdentifier("1234");
+
+        repositoryCache.onReply(request, mock(Event.class));
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+    @Test
+    public void user_fetched_before_an_invalidation_is_not_cached() {
+        UserFetcher userFetcher = repositoryCache.decorate(backend);
+        Event request = mock(Event.class);
+        when(request.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(request.getCustom()).thenReturn(Collections.singletonMap(Event.REQUESTER_ID_CUSTOM_HEADER, "1234"));
+        doAnswer(invocation -> {
+            repositoryCache.receive(request);
+            return user;
+        }).when(backend).getUserByIdentifier("1234");
+
+        userFetcher.getUserByIdentifier("1234");
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+    @Test
+    public void project_configuration_user_change_invalidate_only_changed_project_configuration() {
+        ProjectFetcher projectBackend = mock(ProjectFetcher.class);
+        when(projectBackend.getProjectConfigurationById("changed")).thenReturn(mock(ProjectConfiguration.class));
+        when(projectBackend.getProjectConfigurationById("other")).thenReturn(mock(ProjectConfiguration.class));
+        ProjectFetcher projectFetcher = repositoryCache.decorate(projectBackend);
+        projectFetcher.getProjectConfigurationById("changed");
+        projectFetcher.getProjectConfigurationById("other");
+        ProjectConfigurationChangeUserRequest changeUserRequest = mock(ProjectConfigurationChangeUserRequest.class);
+        when(changeUserRequest.getProjectConfigurationId()).thenReturn("changed");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.PROJECTCONFIG_CHANGE_USER_REQUEST);
+        when(event.getPayload(ProjectConfigurationChangeUserRequest.class)).thenReturn(changeUserRequest);
+
+        assertThat(repositoryCache.receive(event).get()).isTrue();
+        projectFetcher.getProjectConfigurationById("changed");
+        projectFetcher.getProjectConfigurationById("other");
+
+        verify(projectBackend, times(2)).getProjectConfigurationById("changed");
+        verify(projectBackend, times(1)).getProjectConfigurationById("other");
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class RequestScopeTest {
+
+    private UserFetcher backend;
+
+    private UserFetcher userFetcher;
+
+    @Before
+    public void setup() {
+        User user = new User("1234", Collections.singleton("5678"), "Jean-Pascal THIERY", "jpthiery", "jpthiery@kodokojo.io", "jpascal", "ssh-rsa AAAA", false);
+        backend = mock(UserFetcher.class);
+        when(backend.getUserByIdentifier("1234")).thenReturn(user);
+        userFetcher = RequestScope.memoize(backend);
+    }
+
+    @Test
+    public void entity_is_fetched_once_per_request() {
+        RequestScope scope = RequestScope.open();
+        try {
+            userFetcher.getUserByIdentifier("1234");
+            userFetcher.getUserByIdentifier("1234");
+        } finally {
+            scope.close();
+        }
+
+        verify(backend, times(1)).getUserByIdentifier("1234");
+        assertThat(scope.getFetchCount()).isEqualTo(1);
+        assertThat(scope.getMemoizedCount()).isEqualTo(1);
+
+        RequestScope next = RequestScope.open();
+        try {
+            userFetcher.getUserByIdentifier("1234");
+        } finally {
+            next.close();
+        }
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+    @Test
+    public void fetchers_are_called_as_is_outside_of_a_request() {
+        userFetcher.getUserByIdentifier("1234");
+        userFetcher.getUserByIdentifier("1234");
+
+        verify(backend, times(2)).getUserByIdentifier("1234");
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Kodo Kojo - API frontend which dispatch REST event to Http services or publish event on EvetnBus.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.api.service.cache;
+
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void concurrent_lookups_of_a_same_identifier_call_backend_once() throws Exception {
+        Project project = mock(Project.class);
+        CountDownLatch backendCalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProjectFetcher backend = mock(ProjectFetcher.class);
+        when(backend.getProjectByIdentifier("1234")).then(invocation -> {
+            backendCalled.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return project;
+        });
+        SingleFlight singleFlight = new SingleFlight();
+        ProjectFetcher projectFetcher = singleFlight.coalesce(backend);
+
+        List<Future<Project>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executorService.submit(() -> projectFetcher.getProjectByIdentifier("1234")));
+        }
+        assertThat(backendCalled.await(5, TimeUnit.SECONDS)).isTrue();
+        waitUntilCoalesced(singleFlight, CALLERS - 1);
+        release.countDown();
+
+        for (Future<Project> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(project);
+        }
+        verify(backend, times(1)).getProjectByIdentifier("1234");
+    }
+
+    @Test
+    public void failure_is_shared_with_waiting_callers_then_forgotten() {
+        ProjectFetcher backend = mock(ProjectFetcher.class);
+        when(backend.getProjectByIdentifier("1234")).thenThrow(new IllegalStateException("Redis unavailable")).thenReturn(null);
+        ProjectFetcher projectFetcher = new SingleFlight().coalesce(backend);
+
+        try {
+            projectFetcher.getProjectByIdentifier("1234");
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("Redis unavailable");
+        }
+        assertThat(projectFetcher.getProjectByIdentifier("1234")).isNull();
+    }
+
+    private static void waitUntilCoalesced(SingleFlight singleFlight, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.coalescedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(singleFlight.coalescedCount()).isEqualTo(expected);
+    }
+
+}
@@ -20,6 +20,12 @@ package io.kodokojo.test.bdd.stage;
 import com.google.inject.*;
 import com.tngtech.jgiven.Stage;
 import com.tngtech.jgiven.annotation.*;
+import io.kodokojo.api.config.AuthenticationConfig;
+import io.kodokojo.api.config.EventPublicationConfig;
+import io.kodokojo.api.config.EventRequestConfig;
+import io.kodokojo.api.config.RepositoryCacheConfig;
+import io.kodokojo.api.config.SseConfig;
+import io.kodokojo.api.config.UserIdentifierPoolConfig;
 import io.kodokojo.api.config.ReCaptchaConfig;
 import io.kodokojo.api.config.module.HttpModule;
 import io.kodokojo.api.config.module.ServiceModule;
@@ -180,7 +186,7 @@ public class ApiGiven<SELF extends ApiGiven<?>> extends Stage<SELF> implements D
             @Override
             protected void configure() {
                 bind(new TypeLiteral<UserAuthenticator<SimpleCredential>>() {/**/
-                }).toProvider(SimpleUserAuthenticatorProvider.class);
+                }).toProvider(SimpleUserAuthenticatorProvider.class).in(Singleton.class);
             }
 
             @Provides
@@ -251,6 +257,272 @@ public class ApiGiven<SELF extends ApiGiven<?>> extends Stage<SELF> implements D
                 };
             }
 
+            @Provides
+            @Singleton
+            AuthenticationConfig provideAuthenticationConfig() {
+                return new AuthenticationConfig() {
+                    @Override
+                    public int cacheSize() {
+                        return 1000;
+                    }
+
+                    @Override
+                    public long cacheTtl() {
+                        return 30000;
+                    }
+
+                    @Override
+                    public String tokenSecret() {
+                        return "";
+                    }
+
+                    @Override
+                    public long tokenTtl() {
+                        return 900000;
+                    }
+
+                    @Override
+                    public int throttleMaxFailuresByUsername() {
+                        return 10;
+                    }
+
+                    @Override
+                    public int throttleMaxFailuresByIp() {
+                        return 50;
+                    }
+
+                    @Override
+                    public long throttleDecayPeriod() {
+                        return 60000;
+                    }
+
+                    @Override
+                    public int throttleSize() {
+                        return 4096;
+                    }
+                };
+            }
+
+            @Provides
+            @Singleton
+            RepositoryCacheConfig provideRepositoryCacheConfig() {
+                return new RepositoryCacheConfig() {
+                    @Override
+                    public int userSize() {
+                        return 1000;
+                    }
+
+                    @Override
+                    public int projectConfigurationSize() {
+                        return 500;
+                    }
+
+                    @Override
+                    public int organisationSize() {
+                        return 200;
+                    }
+
+                    @Override
+                    public int organisationRightsSize() {
+                        return 1000;
+                    }
+
+                    @Override
+                    public int negativeCacheSize() {
+                        return 10000;
+                    }
+
+                    @Override
+                    public long negativeCacheTtl() {
+                        return 2000;
+                    }
+
+                    @Override
+                    public int lookupThreads() {
+                        return 8;
+                    }
+
+                    @Override
+                    public int lookupQueueSize() {
+                        return 64;
+                    }
+
+                    @Override
+                    public long lookupLinksTtl() {
+                        return 86400000;
+                    }
+
+                    @Override
+                    public long ttl() {
+                        return 10000;
+                    }
+                };
+            }
+
+            @Provides
+            @Singleton
+            EventPublicationConfig provideEventPublicationConfig() {
+                return new EventPublicationConfig() {
+                    @Override
+                    public Boolean organisationChangeAdminBatched() {
+                        return Boolean.FALSE;
+                    }
+                };
+            }
+
+            @Provides
+            @Singleton
+            UserIdentifierPoolConfig provideUserIdentifierPoolConfig() {
+                return new UserIdentifierPoolConfig() {
+                    @Override
+                    public int size() {
+                        return 0;
+                    }
+
+                    @Override
+                    public int lowWaterMark() {
+                        return 0;
+                    }
+
+                    @Override
+                    public long maxAge() {
+                        return 600000;
+                    }
+                };
+            }
+
+            @Provides
+            @Singleton
+            SseConfig provideSseConfig() {
+                return new SseConfig() {
+                    @Override
+                    public long heartbeatPeriod() {
+                        return 15000;
+                    }
+
+                    @Override
+                    public long idleTimeout() {
+                        return 60000;
+                    }
+
+                    @Override
+                    public int writerThreads() {
+                        return 2;
+                    }
+
+                    @Override
+                    public int queueCapacity() {
+                        return 64;
+                    }
+
+                    @Override
+                    public String overflowPolicy() {
+                        return "DROP_OLDEST";
+                    }
+                };
+            }
+
+            @Provides
+            @Singleton
+            EventRequestConfig provideEventRequestConfig() {
+                return new EventRequestConfig() {
+                    @Override
+                    public int threads() {
+                        return 64;
+                    }
+
+                    @Override
+                    public int queueSize() {
+                        return 512;
+                    }
+
+                    @Override
+                    public long defaultDeadline() {
+                        return 30000;
+                    }
+
+                    @Override
+                    public long userIdentifierCreationDeadline() {
+                        return 30000;
+                    }
+
+                    @Override
+                    public long userCreationDeadline() {
+                        return 10000;
+                    }
+
+                    @Override
+                    public long userUpdateDeadline() {
+                        return 5000;
+                    }
+
+                    @Override
+                    public long organisationCreationDeadline() {
+                        return 30000;
+                    }
+
+                    @Override
+                    public long projectConfigurationCreationDeadline() {
+                        return 30000;
+                    }
+
+                    @Override
+                    public long projectConfigurationStartDeadline() {
+                        return 60000;
+                    }
+
+                    @Override
+                    public int defaultBulkhead() {
+                        return 16;
+                    }
+
+                    @Override
+                    public int userIdentifierCreationBulkhead() {
+                        return 16;
+                    }
+
+                    @Override
+                    public int userCreationBulkhead() {
+                        return 16;
+                    }
+
+                    @Override
+                    public int userUpdateBulkhead() {
+                        return 16;
+                    }
+
+                    @Override
+                    public int organisationCreationBulkhead() {
+                        return 8;
+                    }
+
+                    @Override
+                    public int projectConfigurationCreationBulkhead() {
+                        return 16;
+                    }
+
+                    @Override
+                    public int projectConfigurationStartBulkhead() {
+                        return 8;
+                    }
+
+                    @Override
+                    public int circuitFailureThreshold() {
+                        return 5;
+                    }
+
+                    @Override
+                    public long circuitOpenDuration() {
+                        return 10000;
+                    }
+
+                    @Override
+                    public int circuitHalfOpenRequests() {
+                        return 1;
+                    }
+                };
+            }
+
             @Provides
             @Singleton
             ElasticSearchConfig provideElasticSearchConfig() {